@@ -0,0 +1,175 @@
+/**
+ *    Copyright 2019 MetaRing s.r.l.
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.metaring.framework;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ConcurrentModificationException;
+import java.util.RandomAccess;
+
+/**
+ * Range and copy-on-write bookkeeping of the array-backed series. The items
+ * are elements[offset, offset + size); slices and views share the array with
+ * the series they come from, and whichever of them is modified first copies
+ * its own range beforehand. A is the array type, so that primitive series
+ * keep primitive arrays.
+ */
+abstract class ArraySeries<E, A> extends AbstractList<E> implements RandomAccess, Serializable {
+
+    private static final long serialVersionUID = -6001532766447329190L;
+
+    transient A elements;
+    transient int offset;
+    transient boolean shared;
+    int size;
+    final boolean readOnly;
+
+    ArraySeries(A elements, int offset, int size, boolean shared, boolean readOnly) {
+        super();
+        this.elements = elements;
+        this.offset = offset;
+        this.size = size;
+        this.shared = shared;
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * Implementations return their shared empty array for a length of 0.
+     */
+    abstract A newArray(int length);
+
+    abstract int length(A array);
+
+    /**
+     * Called with the positions left behind by a removal, so that series of
+     * references can clear them.
+     */
+    void release(int from, int to) {
+    }
+
+    @Override
+    public final int size() {
+        return size;
+    }
+
+    public void ensureCapacity(int capacity) {
+        beforeChange();
+        int length = length(elements);
+        if (capacity > length) {
+            int grown = length + (length >> 1);
+            elements = copyOf(Math.max(Math.max(grown, capacity), 10));
+        }
+    }
+
+    public void trimToSize() {
+        beforeChange();
+        if (length(elements) > size) {
+            elements = copyOf(size);
+        }
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        beforeChange();
+        System.arraycopy(elements, toIndex, elements, fromIndex, size - toIndex);
+        int newSize = size - (toIndex - fromIndex);
+        release(newSize, size);
+        size = newSize;
+        modCount++;
+    }
+
+    @Override
+    public void clear() {
+        beforeChange();
+        if (size > 0) {
+            release(0, size);
+            size = 0;
+            modCount++;
+        }
+    }
+
+    /**
+     * Makes room for count items at index, which the caller then fills.
+     */
+    final void insertRoom(int index, int count) {
+        checkPositionIndex(index);
+        ensureCapacity(size + count);
+        System.arraycopy(elements, index, elements, index + count, size - index);
+        size += count;
+        modCount++;
+    }
+
+    final void removeAt(int index) {
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        release(size, size + 1);
+        modCount++;
+    }
+
+    /**
+     * The array, for a slice or view about to share it.
+     */
+    final A share() {
+        shared = true;
+        return elements;
+    }
+
+    /**
+     * A shared series copies its own range before its first modification; a
+     * read-only one rejects it. Afterwards offset is 0.
+     */
+    final void beforeChange() {
+        if (readOnly) {
+            throw new UnsupportedOperationException();
+        }
+        if (shared) {
+            elements = copyOf(size);
+            offset = 0;
+            shared = false;
+        }
+    }
+
+    final void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    final void checkPositionIndex(int index) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    final void checkSlice(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("From: " + from + ", To: " + to + ", Size: " + size);
+        }
+    }
+
+    final void checkForComodification(int expectedModCount) {
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    private A copyOf(int length) {
+        A copy = newArray(length);
+        System.arraycopy(elements, offset, copy, 0, Math.min(size, length));
+        return copy;
+    }
+}
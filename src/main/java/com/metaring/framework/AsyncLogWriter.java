@@ -0,0 +1,326 @@
+/**
+ *    Copyright 2019 MetaRing s.r.l.
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.metaring.framework;
+
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded, preallocated ring buffer between the threads that log and a single
+ * daemon thread that writes the lines to the console in batches, so callers
+ * never wait on the System.out lock. Producers claim slots with a CAS on a
+ * shared counter and publish them through a per-slot sequence number. Once
+ * warm, the writer thread allocates nothing per line: it encodes the batches
+ * itself into reused byte arrays. The logging threads still allocate the
+ * String of each line. Lines tagged SEVERE go to System.err, as with the
+ * synchronous handler. Pending lines are written before the JVM shuts down.
+ */
+final class AsyncLogWriter {
+
+    static final int DEFAULT_SAMPLE_RATE = 64;
+
+    private static final long PARK_NANOS = 10_000_000L;
+    private static final long MIN_BACKOFF_NANOS = 1_000L;
+    private static final long MAX_BACKOFF_NANOS = 1_000_000L;
+
+    /**
+     * What a producer does when every slot is taken: BLOCK waits for the
+     * writer to free a slot, DROP discards the line and SAMPLE waits only for
+     * one line out of every sample rate, discarding the others. Discarded
+     * lines are counted and reported by the writer. Waiting producers park
+     * for a time that doubles up to a millisecond instead of spinning.
+     */
+    enum FullBufferPolicy {
+        BLOCK, DROP, SAMPLE
+    }
+
+    private final String[] lines;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final FullBufferPolicy fullBufferPolicy;
+    private final int sampleRate;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong overflows = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicInteger producers = new AtomicInteger();
+    private final String severeTag;
+    private final Thread writer;
+    private final Thread shutdownHook;
+    private final ByteBatch out = new ByteBatch(JsonStreams.CHUNK_SIZE);
+    private final ByteBatch err = new ByteBatch(256);
+    private volatile boolean waiting;
+    private volatile boolean closed;
+    private volatile boolean stopped;
+    private volatile long written;
+    private long head;
+
+    AsyncLogWriter(int capacity, FullBufferPolicy fullBufferPolicy, int sampleRate, String severeTag) {
+        if (capacity < 2 || sampleRate < 1) {
+            throw new IllegalArgumentException("Capacity: " + capacity + ", Sample rate: " + sampleRate);
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.lines = new String[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.fullBufferPolicy = fullBufferPolicy;
+        this.sampleRate = sampleRate;
+        this.severeTag = severeTag;
+        this.writer = new Thread(this::run, "metaring-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        this.shutdownHook = new Thread(this::close, "metaring-log-writer-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Returns false once the writer is closed, in which case the caller has to
+     * write the line itself. A line discarded by the full buffer policy counts
+     * as published. Producers are counted while they are inside, so close
+     * lets the writer stop only once none of them can still fill a slot.
+     */
+    boolean publish(String line) {
+        producers.incrementAndGet();
+        try {
+            return offer(line);
+        }
+        finally {
+            producers.decrementAndGet();
+        }
+    }
+
+    private boolean offer(String line) {
+        boolean mayWait = fullBufferPolicy == FullBufferPolicy.BLOCK;
+        long backoff = MIN_BACKOFF_NANOS;
+        while (!closed) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    lines[index] = line;
+                    // A full volatile write: with lazySet the read of waiting
+                    // could be ordered before the publication and miss a writer
+                    // that has just checked the slot and is about to park.
+                    sequences.set(index, position + 1);
+                    if (waiting) {
+                        LockSupport.unpark(writer);
+                    }
+                    return true;
+                }
+            }
+            else if (difference < 0) {
+                if (!mayWait) {
+                    if (fullBufferPolicy == FullBufferPolicy.DROP || overflows.incrementAndGet() % sampleRate != 0) {
+                        dropped.incrementAndGet();
+                        return true;
+                    }
+                    mayWait = true;
+                }
+                LockSupport.unpark(writer);
+                LockSupport.parkNanos(this, backoff);
+                backoff = Math.min(backoff << 1, MAX_BACKOFF_NANOS);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Waits until every line published before the call has been written.
+     */
+    void flush() {
+        long target = tail.get();
+        while (written < target && writer.isAlive()) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(100_000L);
+        }
+    }
+
+    /**
+     * Stops accepting lines and waits for the writer to drain the ring. Also
+     * run by the shutdown hook.
+     */
+    synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        while (producers.get() != 0) {
+            LockSupport.parkNanos(100_000L);
+        }
+        stopped = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!writer.isAlive()) {
+            drain();
+            write();
+        }
+        if (Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            }
+            catch (IllegalStateException e) {
+            }
+        }
+    }
+
+    private void run() {
+        long reportedDropped = 0;
+        while (true) {
+            int count = drain();
+            long droppedNow = dropped.get();
+            if (droppedNow != reportedDropped) {
+                err.append(Long.toString(droppedNow - reportedDropped));
+                err.append(" log lines dropped: buffer full");
+                err.endLine();
+                reportedDropped = droppedNow;
+            }
+            write();
+            if (count > 0) {
+                continue;
+            }
+            if (stopped) {
+                if (tail.get() == head) {
+                    return;
+                }
+                continue;
+            }
+            waiting = true;
+            if (!isReady()) {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+            waiting = false;
+        }
+    }
+
+    /**
+     * Moves every line published so far into the batch builders and frees
+     * their slots, writing the batches out whenever either of them reaches a
+     * chunk, so a burst of SEVERE lines does not grow the error batch without
+     * bound.
+     */
+    private int drain() {
+        int count = 0;
+        while (isReady()) {
+            int index = (int) head & mask;
+            String line = lines[index];
+            lines[index] = null;
+            sequences.lazySet(index, head + mask + 1);
+            head++;
+            count++;
+            ByteBatch batch = line.contains(severeTag) ? err : out;
+            batch.append(line);
+            batch.endLine();
+            if (out.length >= JsonStreams.CHUNK_SIZE || err.length >= JsonStreams.CHUNK_SIZE) {
+                write();
+            }
+        }
+        return count;
+    }
+
+    private boolean isReady() {
+        return sequences.get((int) head & mask) == head + 1;
+    }
+
+    private void write() {
+        write(System.out, out);
+        write(System.err, err);
+        written = head;
+    }
+
+    private static void write(PrintStream printStream, ByteBatch batch) {
+        if (batch.length > 0) {
+            printStream.write(batch.bytes, 0, batch.length);
+            printStream.flush();
+            batch.length = 0;
+        }
+    }
+
+    /**
+     * Lines encoded to UTF-8 straight into a byte array that is reused from
+     * batch to batch, so the writer thread allocates nothing once the array
+     * has grown to the size of its batches.
+     */
+    private static final class ByteBatch {
+
+        private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+        private byte[] bytes;
+        private int length;
+
+        ByteBatch(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void append(String string) {
+            int stringLength = string.length();
+            ensureCapacity(length + stringLength * 3);
+            byte[] bytes = this.bytes;
+            int position = length;
+            for (int i = 0; i < stringLength; i++) {
+                char c = string.charAt(i);
+                if (c < 0x80) {
+                    bytes[position++] = (byte) c;
+                }
+                else if (c < 0x800) {
+                    bytes[position++] = (byte) (0xC0 | c >> 6);
+                    bytes[position++] = (byte) (0x80 | c & 0x3F);
+                }
+                else if (Character.isHighSurrogate(c) && i + 1 < stringLength && Character.isLowSurrogate(string.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, string.charAt(++i));
+                    bytes[position++] = (byte) (0xF0 | codePoint >> 18);
+                    bytes[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                    bytes[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                    bytes[position++] = (byte) (0x80 | codePoint & 0x3F);
+                }
+                else if (Character.isSurrogate(c)) {
+                    bytes[position++] = '?';
+                }
+                else {
+                    bytes[position++] = (byte) (0xE0 | c >> 12);
+                    bytes[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                    bytes[position++] = (byte) (0x80 | c & 0x3F);
+                }
+            }
+            length = position;
+        }
+
+        void endLine() {
+            ensureCapacity(length + LINE_SEPARATOR.length);
+            System.arraycopy(LINE_SEPARATOR, 0, bytes, length, LINE_SEPARATOR.length);
+            length += LINE_SEPARATOR.length;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length << 1));
+            }
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/**
+ *    Copyright 2019 MetaRing s.r.l.
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.metaring.framework;
+
+import java.io.StringReader;
+import java.util.Arrays;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+
+import com.metaring.framework.type.DataRepresentation;
+
+/**
+ * Mutable, reusable read-only position over the tree of a DataRepresentation.
+ * Moving and reading allocate nothing once the path stack has grown to the
+ * deepest level visited, so one instance per thread can serve any number of
+ * traversals. A cursor must be reset after its root is modified.
+ */
+public final class DataRepresentationCursor {
+
+    private static final int INITIAL_DEPTH = 8;
+    private static final ThreadLocal<DataRepresentationCursor> CURSORS = ThreadLocal.withInitial(DataRepresentationCursor::new);
+
+    private DataRepresentationImpl root;
+    private DataRepresentation source;
+    private Object[] keys;
+    private JsonElement[] path = new JsonElement[INITIAL_DEPTH];
+    private int depth = -1;
+
+    static final DataRepresentationCursor of(DataRepresentationImpl root) {
+        return CURSORS.get().reset(root);
+    }
+
+    /**
+     * Returns the cursor pooled for the calling thread, positioned on the given
+     * root. It must not escape the thread nor be held across another call to
+     * this method. A root of another implementation is read through its JSON
+     * once, and toDataRepresentation replays the path on it with get, so that
+     * one records the keys it moves through.
+     */
+    public static final DataRepresentationCursor of(DataRepresentation root) {
+        return CURSORS.get().reset(root);
+    }
+
+    final DataRepresentationCursor reset(DataRepresentationImpl root) {
+        return reset(root, root == null ? null : root.jsonElement());
+    }
+
+    public final DataRepresentationCursor reset(DataRepresentation root) {
+        if (root == null || root instanceof DataRepresentationImpl) {
+            return reset((DataRepresentationImpl) root);
+        }
+        reset(null, DataRepresentationImpl.parseDocument(new StringReader(root.toJson())));
+        source = root;
+        if (keys == null || keys.length < path.length) {
+            keys = new Object[path.length];
+        }
+        return this;
+    }
+
+    private final DataRepresentationCursor reset(DataRepresentationImpl root, JsonElement element) {
+        Arrays.fill(path, 0, depth + 1, null);
+        if (source != null) {
+            Arrays.fill(keys, 0, depth + 1, null);
+        }
+        this.root = root;
+        source = null;
+        depth = 0;
+        path[0] = element;
+        return this;
+    }
+
+    public final int depth() {
+        return depth;
+    }
+
+    public final boolean moveTo(String property) {
+        JsonElement current = current();
+        if (property == null || current == null || !current.isJsonObject()) {
+            return false;
+        }
+        JsonElement child = current.getAsJsonObject().get(property);
+        return child != null && push(child, property);
+    }
+
+    public final boolean moveTo(int position) {
+        JsonElement current = current();
+        if (current == null || !current.isJsonArray()) {
+            return false;
+        }
+        JsonArray jsonArray = current.getAsJsonArray();
+        return position >= 0 && position < jsonArray.size() && push(jsonArray.get(position), position);
+    }
+
+    public final boolean up() {
+        if (depth <= 0) {
+            return false;
+        }
+        if (source != null) {
+            keys[depth] = null;
+        }
+        path[depth--] = null;
+        return true;
+    }
+
+    public final DataRepresentationCursor top() {
+        while (up()) {
+        }
+        return this;
+    }
+
+    public final boolean hasProperty(String property) {
+        JsonElement current = current();
+        return property != null && current != null && current.isJsonObject() && current.getAsJsonObject().has(property);
+    }
+
+    public final boolean isNull() {
+        JsonElement current = current();
+        return current == null || current.isJsonNull();
+    }
+
+    public final boolean hasProperties() {
+        JsonElement current = current();
+        return current != null && current.isJsonObject();
+    }
+
+    public final boolean hasLength() {
+        JsonElement current = current();
+        return current != null && current.isJsonArray();
+    }
+
+    /**
+     * Number of items of an array or of properties of an object, -1 otherwise.
+     */
+    public final int length() {
+        JsonElement current = current();
+        if (current == null) {
+            return -1;
+        }
+        if (current.isJsonArray()) {
+            return current.getAsJsonArray().size();
+        }
+        if (current.isJsonObject()) {
+            return current.getAsJsonObject().size();
+        }
+        return -1;
+    }
+
+    public final boolean isText() {
+        return is(JsonElementKind.TEXT);
+    }
+
+    public final boolean isDigit() {
+        return is(JsonElementKind.DIGIT);
+    }
+
+    public final boolean isRealDigit() {
+        return is(JsonElementKind.REAL_DIGIT);
+    }
+
+    public final boolean isTruth() {
+        return is(JsonElementKind.TRUTH);
+    }
+
+    public final String asText() {
+        JsonElement current = current();
+        if (current == null) {
+            return null;
+        }
+        return current.isJsonPrimitive() ? current.getAsString() : current.toString();
+    }
+
+    public final long asDigit(long defaultValue) {
+        return is(JsonElementKind.DIGIT) ? current().getAsLong() : defaultValue;
+    }
+
+    public final double asRealDigit(double defaultValue) {
+        return is(JsonElementKind.REAL_DIGIT) ? current().getAsDouble() : defaultValue;
+    }
+
+    public final boolean asTruth(boolean defaultValue) {
+        return is(JsonElementKind.TRUTH) ? current().getAsBoolean() : defaultValue;
+    }
+
+    /**
+     * Materializes the current position as a copy-on-write view, the same
+     * object DataRepresentation.get would return.
+     */
+    public final DataRepresentation toDataRepresentation() {
+        if (root == null) {
+            return source == null ? null : replay();
+        }
+        return depth == 0 ? root.createSelfView() : root.createView(current());
+    }
+
+    public final void accept(DataRepresentationVisitor visitor) {
+        JsonEvents.visit(current(), visitor);
+    }
+
+    private final JsonElement current() {
+        return depth < 0 ? null : path[depth];
+    }
+
+    private final boolean is(int flag) {
+        return JsonElementKind.is(JsonElementKind.of(current()), flag);
+    }
+
+    private final DataRepresentation replay() {
+        DataRepresentation dataRepresentation = source;
+        for (int i = 1; i <= depth && dataRepresentation != null; i++) {
+            Object key = keys[i];
+            dataRepresentation = key instanceof String ? dataRepresentation.get((String) key) : dataRepresentation.get((Integer) key);
+        }
+        return dataRepresentation;
+    }
+
+    private final boolean push(JsonElement element, Object key) {
+        if (++depth == path.length) {
+            path = Arrays.copyOf(path, depth * 2);
+            if (source != null) {
+                keys = Arrays.copyOf(keys, path.length);
+            }
+        }
+        path[depth] = element;
+        if (source != null) {
+            keys[depth] = key;
+        }
+        return true;
+    }
+}
@@ -16,15 +16,31 @@
 
 package com.metaring.framework;
 
-import java.io.FileReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.Reader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
 import com.google.gson.Gson;
@@ -34,6 +50,10 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
 import com.metaring.framework.type.DataRepresentation;
 import com.metaring.framework.type.Email;
@@ -55,8 +75,22 @@ import com.metaring.framework.util.log.LogMessageTypeProvider;
 class DataRepresentationImpl implements DataRepresentation, DataRepresentationFactory {
 
     private static final Gson GSON = new GsonBuilder().create();
+    private static final TypeAdapter<JsonElement> JSON_ELEMENT_ADAPTER = GSON.getAdapter(JsonElement.class);
+    private static final int PROPERTY_INDEX_THRESHOLD = 16;
+    private static final Pattern JSON_LITERAL = Pattern.compile("true|false|null|-?(0|[1-9][0-9]*)(\\.[0-9]+)?([eE][+-]?[0-9]+)?");
+    private static final ClassValue<MethodHandle> GENERATED_CORE_TYPE_READERS = new ClassValue<MethodHandle>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> type) {
+            return findGeneratedCoreTypeReader(type);
+        }
+    };
 
     private JsonElement instance;
+    private boolean shared;
+    private volatile Map<String, JsonElement> propertyIndex;
+    private int propertyLookups;
+    private int kind = JsonElementKind.UNKNOWN;
+    private int seriesKind = JsonElementKind.UNKNOWN;
     protected final TextSeriesFactory textSeriesFactory;
     protected final DigitSeriesFactory digitSeriesFactory;
     protected final RealDigitSeriesFactory realDigitSeriesFactory;
@@ -77,35 +111,164 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
         instance = reinit(filenameOrContent);
     }
 
+    DataRepresentationImpl(DataRepresentationImpl parent, JsonElement instance, boolean shared) {
+        super();
+        this.textSeriesFactory = parent.textSeriesFactory;
+        this.digitSeriesFactory = parent.digitSeriesFactory;
+        this.realDigitSeriesFactory = parent.realDigitSeriesFactory;
+        this.truthSeriesFactory = parent.truthSeriesFactory;
+        this.emailFactory = parent.emailFactory;
+        this.emailSeriesFactory = parent.emailSeriesFactory;
+        this.logMessageTypeProvider = parent.logMessageTypeProvider;
+        this.instance = instance;
+        this.shared = shared;
+    }
+
     protected final JsonElement reinit(String filenameOrContent) {
         if (filenameOrContent == null || filenameOrContent.trim().isEmpty()) {
             return JsonNull.INSTANCE;
         }
-        try(Reader reader = new FileReader(filenameOrContent)) {
-            return GSON.fromJson(reader, JsonElement.class);
-        } catch (Exception e1) {
-            try(Reader reader = new InputStreamReader(this.getClass().getResourceAsStream(filenameOrContent))) {
-                return GSON.fromJson(reader, JsonElement.class);
-            } catch (Exception e2) {
-                try(Reader reader = new InputStreamReader(this.getClass().getClassLoader().getResourceAsStream(filenameOrContent))) {
-                    return GSON.fromJson(reader, JsonElement.class);
-                } catch (Exception e3) {
-                    try(Reader reader = new InputStreamReader(new URL(filenameOrContent).openStream())) {
-                        return GSON.fromJson(reader, JsonElement.class);
-                    } catch (Exception e4) {
-                        try {
-                            return GSON.fromJson(filenameOrContent, JsonElement.class);
-                        } catch (Exception e5) {
-                            try {
-                                return GSON.fromJson("\"" + filenameOrContent + "\"", JsonElement.class);
-                            } catch (Exception e6) {
-                                return JsonNull.INSTANCE;
-                            }
-                        }
-                    }
-                }
+        boolean looksLikeJson = looksLikeJson(filenameOrContent);
+        JsonElement element = looksLikeJson ? parseJson(filenameOrContent) : null;
+        if (element == null) {
+            element = readFile(filenameOrContent);
+        }
+        if (element == null) {
+            element = readResource(filenameOrContent);
+        }
+        if (element == null) {
+            element = readUrl(filenameOrContent);
+        }
+        if (element == null && !looksLikeJson) {
+            element = parseJson(filenameOrContent);
+        }
+        if (element == null) {
+            element = parseJson("\"" + filenameOrContent + "\"");
+        }
+        return element == null ? JsonNull.INSTANCE : element;
+    }
+
+    protected final void reload(JsonElement element) {
+        instance = element == null ? JsonNull.INSTANCE : element;
+        shared = false;
+        propertyIndex = null;
+        propertyLookups = 0;
+        kind = JsonElementKind.UNKNOWN;
+        seriesKind = JsonElementKind.UNKNOWN;
+    }
+
+    /**
+     * Objects, arrays, strings and the scalar literals (numbers, true, false
+     * and null) are parsed before any file, resource or URL lookup.
+     */
+    private static final boolean looksLikeJson(String content) {
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                return c == '{' || c == '[' || c == '"' || JSON_LITERAL.matcher(content.trim()).matches();
             }
         }
+        return false;
+    }
+
+    private static final JsonElement parseJson(String json) {
+        try {
+            return GSON.fromJson(json, JsonElement.class);
+        }
+        catch (Exception e) {
+        }
+        return null;
+    }
+
+    /**
+     * Reads a single JSON value, pulling characters from the reader only as the
+     * parser needs them, and returns as soon as its last token has arrived:
+     * whatever follows is left unread, so a socket or a pipe that stays open
+     * is never waited on. Used for the readers and streams of the caller.
+     */
+    static final JsonElement parseValue(Reader reader) {
+        return parse(reader, false);
+    }
+
+    static final JsonElement parseValue(InputStream inputStream) {
+        return inputStream == null ? null : parseValue(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a whole document: as with Gson.fromJson, anything but whitespace
+     * after the value makes the input invalid. Used for strings, bytes, files,
+     * resources and URLs, whose end is always reached.
+     */
+    static final JsonElement parseDocument(Reader reader) {
+        return parse(reader, true);
+    }
+
+    static final JsonElement parseDocument(InputStream inputStream) {
+        return inputStream == null ? null : parseDocument(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    }
+
+    private static final JsonElement parse(Reader reader, boolean document) {
+        try {
+            JsonReader jsonReader = new JsonReader(reader);
+            jsonReader.setLenient(true);
+            JsonElement element = JSON_ELEMENT_ADAPTER.read(jsonReader);
+            return !document || jsonReader.peek() == JsonToken.END_DOCUMENT ? element : null;
+        }
+        catch (Exception e) {
+        }
+        return null;
+    }
+
+    private static final JsonElement parseAndClose(InputStream inputStream) {
+        if (inputStream == null) {
+            return null;
+        }
+        try(InputStream stream = inputStream) {
+            return parseDocument(stream);
+        }
+        catch (Exception e) {
+        }
+        return null;
+    }
+
+    protected static final JsonElement readFile(String path) {
+        if (path == null) {
+            return null;
+        }
+        File file = new File(path);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            return parseAndClose(new FileInputStream(file));
+        }
+        catch (Exception e) {
+        }
+        return null;
+    }
+
+    protected final JsonElement readResource(String name) {
+        return readResource(this.getClass(), name);
+    }
+
+    static final JsonElement readResource(Class<?> type, String name) {
+        if (name == null) {
+            return null;
+        }
+        JsonElement element = parseAndClose(type.getResourceAsStream(name));
+        return element != null ? element : parseAndClose(type.getClassLoader().getResourceAsStream(name));
+    }
+
+    protected static final JsonElement readUrl(String url) {
+        if (url == null || url.indexOf(':') <= 0) {
+            return null;
+        }
+        try {
+            return parseAndClose(new URL(url).openStream());
+        }
+        catch (Exception e) {
+        }
+        return null;
     }
 
     @Override
@@ -113,15 +276,13 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
         if(extension == null || extension.isNull()) {
             return this;
         }
-        TextSeries listOriginal = textSeriesFactory.create();
+        Set<String> properties = new TreeSet<>();
         if(!this.isNull() && this.hasProperties()) {
-            listOriginal.addAll(this.getProperties());
+            properties.addAll(this.getProperties());
         }
         if(!extension.isNull() && extension.hasProperties()) {
-            listOriginal.addAll(extension.getProperties());
+            properties.addAll(extension.getProperties());
         }
-        List<String> properties = listOriginal.asEnumerable().distinct().toList();
-        Collections.sort(properties);
         for(String property: properties) {
             if(!this.hasProperty(property)) {
                 this.add(property, extension.get(property));
@@ -146,41 +307,68 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
         return instance == null ? "null" : instance.toString();
     }
 
+    public final DataRepresentationCursor cursor() {
+        return new DataRepresentationCursor().reset(this);
+    }
+
+    final JsonElement jsonElement() {
+        return instance;
+    }
+
+    public final void accept(DataRepresentationVisitor visitor) {
+        JsonEvents.visit(instance, visitor);
+    }
+
+    /**
+     * Like fromReader, stops right after the value and leaves the rest of the
+     * reader unread.
+     */
+    public final void visit(Reader reader, DataRepresentationVisitor visitor) throws IOException {
+        JsonReader jsonReader = new JsonReader(reader);
+        jsonReader.setLenient(true);
+        JsonEvents.visit(jsonReader, visitor);
+    }
+
+    public final void visit(InputStream inputStream, DataRepresentationVisitor visitor) throws IOException {
+        visit(new InputStreamReader(inputStream, StandardCharsets.UTF_8), visitor);
+    }
+
+    public final void writeTo(Appendable appendable) throws IOException {
+        JsonWriter jsonWriter = new JsonWriter(JsonStreams.asWriter(appendable));
+        jsonWriter.setLenient(true);
+        JSON_ELEMENT_ADAPTER.write(jsonWriter, instance == null ? JsonNull.INSTANCE : instance);
+        jsonWriter.flush();
+    }
+
+    public final void writeTo(OutputStream outputStream) throws IOException {
+        writeTo(JsonStreams.newWriter(outputStream));
+    }
+
+    public final void writeTo(ByteBuffer byteBuffer) throws IOException {
+        writeTo(JsonStreams.asOutputStream(byteBuffer));
+    }
+
     @Override
     public final Boolean hasProperty(String property) {
-        try {
-            return instance.getAsJsonObject().entrySet().stream().anyMatch(it -> it.getKey().equals(property));
-        }
-        catch (Exception e) {
-        }
-        return false;
+        return property(property) != null;
     }
 
     @Override
     public final Boolean isNull(String property) {
-        try {
-            return instance.getAsJsonObject().get(property).isJsonNull();
-        }
-        catch (Exception e) {
-        }
-        return true;
+        JsonElement element = property(property);
+        return element == null || element.isJsonNull();
     }
 
     @Override
     public final Boolean isNull() {
-        try {
-            return instance.isJsonNull();
-        }
-        catch (Exception e) {
-        }
-        return true;
+        return instance == null || instance.isJsonNull();
     }
 
     @SuppressWarnings("unchecked")
     @Override
     public DataRepresentation add(String property, Iterable<?> values) {
         if (values == null || !values.iterator().hasNext()) {
-            getOrCreateJsonObject().add(property, values == null ? JsonNull.INSTANCE : new JsonArray());
+            putProperty(property, values == null ? JsonNull.INSTANCE : new JsonArray());
             return this;
         }
         Object o = values.iterator().next();
@@ -189,15 +377,18 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
         }
         else
             if (o instanceof Long) {
-                return add(property, digitSeriesFactory.create((Iterable<Long>) values));
+                putProperty(property, toJsonElement(values));
+                return this;
             }
             else
                 if (o instanceof Double) {
-                    return add(property, realDigitSeriesFactory.create((Iterable<Double>) values));
+                    putProperty(property, toJsonElement(values));
+                    return this;
                 }
                 else
                     if (o instanceof Boolean) {
-                        return add(property, truthSeriesFactory.create((Iterable<Boolean>) values));
+                        putProperty(property, toJsonElement(values));
+                        return this;
                     }
                     else
                         if (o instanceof Email) {
@@ -208,7 +399,7 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
                                 JsonArray jsonArray = new JsonArray();
                                 Iterable<CoreType> types = (Iterable<CoreType>) values;
                                 types.forEach(it -> jsonArray.add(toJsonElement(it)));
-                                getOrCreateJsonObject().add(property, jsonArray);
+                                putProperty(property, jsonArray);
                                 return this;
                             }
         throw new IllegalArgumentException("values type is not recognized (" + o.getClass().getName() + ")");
@@ -227,15 +418,24 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
         }
         else
             if (o instanceof Long) {
-                return add(digitSeriesFactory.create((Iterable<Long>) values));
+                for (Long value : (Iterable<Long>) values) {
+                    getOrCreateJsonArray().add(value);
+                }
+                return this;
             }
             else
                 if (o instanceof Double) {
-                    return add(realDigitSeriesFactory.create((Iterable<Double>) values));
+                    for (Double value : (Iterable<Double>) values) {
+                        getOrCreateJsonArray().add(value);
+                    }
+                    return this;
                 }
                 else
                     if (o instanceof Boolean) {
-                        return add(truthSeriesFactory.create((Iterable<Boolean>) values));
+                        for (Boolean value : (Iterable<Boolean>) values) {
+                            getOrCreateJsonArray().add(value);
+                        }
+                        return this;
                     }
                     else
                         if (o instanceof Email) {
@@ -255,10 +455,18 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
     @Override
     public DataRepresentation remove(String property, String... properties) {
         try {
+            beforeChange();
             JsonObject jsonObject = instance.getAsJsonObject();
+            Map<String, JsonElement> index = propertyIndex;
             jsonObject.remove(property);
+            if (index != null) {
+                index.remove(property);
+            }
             for(String p : properties) {
                 jsonObject.remove(p);
+                if (index != null) {
+                    index.remove(p);
+                }
             }
         } catch (Exception e) {
         }
@@ -268,7 +476,7 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
     @Override
     public DataRepresentation add(String property, LogMessageType value) {
         try {
-            getOrCreateJsonObject().add(property, value == null ? JsonNull.INSTANCE : new JsonPrimitive(value.getName()));
+            putProperty(property, value == null ? JsonNull.INSTANCE : new JsonPrimitive(value.getName()));
         }
         catch (Exception e) {
         }
@@ -282,22 +490,12 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
 
     @Override
     public final LogMessageType getLogMessageType(String property) {
-        try {
-            return logMessageTypeProvider.getByName(instance.getAsJsonObject().get(property).getAsString());
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return toLogMessageType(property(property));
     }
 
     @Override
     public final LogMessageType getLogMessageType() {
-        try {
-            return logMessageTypeProvider.getByName(instance.getAsString());
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return is(JsonElementKind.STRING) ? logMessageTypeProvider.getByName(instance.getAsString()) : null;
     }
 
     @Override
@@ -307,7 +505,7 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
 
     public DataRepresentation add(String property, String value) {
         try {
-            getOrCreateJsonObject().add(property, value == null ? JsonNull.INSTANCE : new JsonPrimitive(value));
+            putProperty(property, value == null ? JsonNull.INSTANCE : new JsonPrimitive(value));
         }
         catch (Exception e) {
         }
@@ -327,7 +525,7 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
     @Override
     public DataRepresentation add(String property, TextSeries value) {
         try {
-            getOrCreateJsonObject().add(property, toJsonElement(value));
+            putProperty(property, toJsonElement(value));
         }
         catch (Exception e) {
         }
@@ -336,78 +534,62 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
 
     @Override
     public final Boolean isText(String property) {
-        return get(property).isText();
+        return JsonElementKind.is(JsonElementKind.of(property(property)), JsonElementKind.TEXT);
     }
 
     @Override
     public final Boolean isTextSeries(String property) {
-        return getTextSeries(property) != null;
+        return JsonElementKind.is(JsonElementKind.seriesOf(property(property)), JsonElementKind.TEXT_SERIES);
     }
 
     @Override
     public final Boolean isText() {
-        return isSimple() && !isNull() && !isDigit() && !isRealDigit() && !isTruth();
+        return is(JsonElementKind.TEXT);
     }
 
     @Override
     public final Boolean isTextSeries() {
-        return asTextSeries() != null;
+        return isSeries(JsonElementKind.TEXT_SERIES);
     }
 
     @Override
     public final String asText() {
-        try {
-            return getCleanString(instance);
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return instance == null ? null : getCleanString(instance);
     }
 
     @Override
     public final TextSeries asTextSeries() {
-        try {
-            return textSeriesFactory.fromJson(instance.toString());
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return isSeries(JsonElementKind.TEXT_SERIES) ? textSeriesFactory.fromJson(instance.toString()) : null;
     }
 
     @Override
     public final String getText(String property) {
-        try {
-            return getCleanString(instance.getAsJsonObject().get(property));
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return toText(property(property));
     }
 
     @Override
     public final TextSeries getTextSeries(String property) {
-        try {
-            return textSeriesFactory.fromJson(instance.getAsJsonObject().get(property).toString());
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return toTextSeries(property(property));
     }
 
     @Override
     public DataRepresentation add(String property, Long value) {
         try {
-            getOrCreateJsonObject().add(property, value == null ? JsonNull.INSTANCE : new JsonPrimitive(value));
+            putProperty(property, value == null ? JsonNull.INSTANCE : new JsonPrimitive(value));
         }
         catch (Exception e) {
         }
         return this;
     }
 
+    /**
+     * Digit series hold no null items, so the values go straight to JSON,
+     * where a null item is kept as null.
+     */
     @Override
     public DataRepresentation add(String property, Long... values) {
         try {
-            return add(property, digitSeriesFactory.create(values));
+            putProperty(property, values == null ? new JsonArray() : toJsonElement(values));
         }
         catch (Exception e) {
         }
@@ -417,7 +599,7 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
     @Override
     public DataRepresentation add(String property, DigitSeries value) {
         try {
-            getOrCreateJsonObject().add(property, toJsonElement(value));
+            putProperty(property, toJsonElement(value));
         }
         catch (Exception e) {
         }
@@ -431,73 +613,57 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
 
     @Override
     public final Boolean isDigitSeries(String property) {
-        return getDigitSeries(property) != null;
+        return JsonElementKind.is(JsonElementKind.seriesOf(property(property)), JsonElementKind.DIGIT_SERIES);
     }
 
     @Override
     public final Boolean isDigit() {
-        return asDigit() != null;
+        return is(JsonElementKind.DIGIT);
     }
 
     @Override
     public final Boolean isDigitSeries() {
-        return asDigit() != null;
+        return isSeries(JsonElementKind.DIGIT_SERIES);
     }
 
     @Override
     public final Long asDigit() {
-        try {
-            return instance.getAsLong();
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return is(JsonElementKind.DIGIT) ? instance.getAsLong() : null;
     }
 
     @Override
     public final DigitSeries asDigitSeries() {
-        try {
-            return digitSeriesFactory.fromJson(instance.toString());
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return isSeries(JsonElementKind.DIGIT_SERIES) ? digitSeriesFactory.fromJson(instance.toString()) : null;
     }
 
     @Override
     public final Long getDigit(String property) {
-        try {
-            return instance.getAsJsonObject().get(property).getAsLong();
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return toDigit(property(property));
     }
 
     @Override
     public final DigitSeries getDigitSeries(String property) {
-        try {
-            return digitSeriesFactory.fromJson(instance.getAsJsonObject().get(property).toString());
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return toDigitSeries(property(property));
     }
 
     @Override
     public DataRepresentation add(String property, Double value) {
         try {
-            getOrCreateJsonObject().add(property, value == null ? JsonNull.INSTANCE : new JsonPrimitive(value));
+            putProperty(property, value == null ? JsonNull.INSTANCE : new JsonPrimitive(value));
         }
         catch (Exception e) {
         }
         return this;
     }
 
+    /**
+     * Real digit series hold no null items, so the values go straight to
+     * JSON, where a null item is kept as null.
+     */
     @Override
     public DataRepresentation add(String property, Double... values) {
         try {
-            return add(property, realDigitSeriesFactory.create(values));
+            putProperty(property, values == null ? new JsonArray() : toJsonElement(values));
         }
         catch (Exception e) {
         }
@@ -507,7 +673,7 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
     @Override
     public DataRepresentation add(String property, RealDigitSeries value) {
         try {
-            getOrCreateJsonObject().add(property, toJsonElement(value));
+            putProperty(property, toJsonElement(value));
         }
         catch (Exception e) {
         }
@@ -521,73 +687,57 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
 
     @Override
     public final Boolean isRealDigitSeries(String property) {
-        return getRealDigitSeries(property) != null;
+        return JsonElementKind.is(JsonElementKind.seriesOf(property(property)), JsonElementKind.REAL_DIGIT_SERIES);
     }
 
     @Override
     public final Boolean isRealDigit() {
-        return asRealDigit() != null;
+        return is(JsonElementKind.REAL_DIGIT);
     }
 
     @Override
     public final Boolean isRealDigitSeries() {
-        return asRealDigitSeries() != null;
+        return isSeries(JsonElementKind.REAL_DIGIT_SERIES);
     }
 
     @Override
     public final Double asRealDigit() {
-        try {
-            return instance.getAsDouble();
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return is(JsonElementKind.REAL_DIGIT) ? instance.getAsDouble() : null;
     }
 
     @Override
     public final RealDigitSeries asRealDigitSeries() {
-        try {
-            return realDigitSeriesFactory.fromJson(instance.getAsString());
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return isSeries(JsonElementKind.REAL_DIGIT_SERIES) ? realDigitSeriesFactory.fromJson(instance.toString()) : null;
     }
 
     @Override
     public final Double getRealDigit(String property) {
-        try {
-            return instance.getAsJsonObject().get(property).getAsDouble();
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return toRealDigit(property(property));
     }
 
     @Override
     public final RealDigitSeries getRealDigitSeries(String property) {
-        try {
-            return realDigitSeriesFactory.fromJson(instance.getAsJsonObject().get(property).getAsString());
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return toRealDigitSeries(property(property));
     }
 
     @Override
     public DataRepresentation add(String property, Boolean value) {
         try {
-            getOrCreateJsonObject().add(property, value == null ? JsonNull.INSTANCE : new JsonPrimitive(value));
+            putProperty(property, value == null ? JsonNull.INSTANCE : new JsonPrimitive(value));
         }
         catch (Exception e) {
         }
         return this;
     }
 
+    /**
+     * Truth series hold no null items, so the values go straight to JSON,
+     * where a null item is kept as null.
+     */
     @Override
     public DataRepresentation add(String property, Boolean... values) {
         try {
-            return add(property, truthSeriesFactory.create(values));
+            putProperty(property, values == null ? new JsonArray() : toJsonElement(values));
         }
         catch (Exception e) {
         }
@@ -597,7 +747,7 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
     @Override
     public DataRepresentation add(String property, TruthSeries value) {
         try {
-            getOrCreateJsonObject().add(property, toJsonElement(value));
+            putProperty(property, toJsonElement(value));
         }
         catch (Exception e) {
         }
@@ -611,74 +761,47 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
 
     @Override
     public final Boolean isTruthSeries(String property) {
-        return getTruthSeries(property) != null;
+        return JsonElementKind.is(JsonElementKind.seriesOf(property(property)), JsonElementKind.TRUTH_SERIES);
     }
 
     @Override
     public final Boolean isTruth() {
-        return asTruth() != null;
+        return is(JsonElementKind.TRUTH);
     }
 
     @Override
     public final Boolean isTruthSeries() {
-        return asTruthSeries() != null;
+        return isSeries(JsonElementKind.TRUTH_SERIES);
     }
 
     private final Boolean booleanize(JsonElement element) {
-        try {
-            String elementToString = element.toString();
-            if(elementToString.equals("true") || elementToString.equals("false")) {
-                return Boolean.parseBoolean(elementToString);
-            }
-        } catch (Exception e) {
-        }
-        return null;
+        return JsonElementKind.is(JsonElementKind.of(element), JsonElementKind.TRUTH) ? element.getAsBoolean() : null;
     }
 
     @Override
     public final Boolean asTruth() {
-        try {
-            return booleanize(instance);
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return is(JsonElementKind.TRUTH) ? instance.getAsBoolean() : null;
     }
 
     @Override
     public final TruthSeries asTruthSeries() {
-        try {
-            return truthSeriesFactory.fromJson(instance.toString());
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return isSeries(JsonElementKind.TRUTH_SERIES) ? truthSeriesFactory.fromJson(instance.toString()) : null;
     }
 
     @Override
     public final Boolean getTruth(String property) {
-        try {
-            return booleanize(instance.getAsJsonObject().get(property));
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return booleanize(property(property));
     }
 
     @Override
     public final TruthSeries getTruthSeries(String property) {
-        try {
-            return truthSeriesFactory.fromJson(instance.getAsJsonObject().get(property).toString());
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return toTruthSeries(property(property));
     }
 
     @Override
     public DataRepresentation add(String property, Email value) {
         try {
-            getOrCreateJsonObject().add(property, toJsonElement(value));
+            putProperty(property, toJsonElement(value));
         }
         catch (Exception e) {
         }
@@ -698,7 +821,7 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
     @Override
     public DataRepresentation add(String property, EmailSeries value) {
         try {
-            getOrCreateJsonObject().add(property, toJsonElement(value));
+            putProperty(property, toJsonElement(value));
         }
         catch (Exception e) {
         }
@@ -712,7 +835,7 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
 
     @Override
     public final Boolean isEmailSeries(String property) {
-        return getEmailSeries(property) != null;
+        return JsonElementKind.is(JsonElementKind.seriesOf(property(property)), JsonElementKind.EMAIL_SERIES);
     }
 
     @Override
@@ -722,53 +845,34 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
 
     @Override
     public final Boolean isEmailSeries() {
-        return asEmailSeries() != null;
+        return isSeries(JsonElementKind.EMAIL_SERIES);
     }
 
     @Override
     public final Email asEmail() {
-        try {
-            return emailFactory.fromJson(instance.getAsString());
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return is(JsonElementKind.STRING) ? emailFactory.fromJson(instance.getAsString()) : null;
     }
 
     @Override
     public final EmailSeries asEmailSeries() {
-        try {
-            return emailSeriesFactory.fromJson(instance.toString());
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return isSeries(JsonElementKind.EMAIL_SERIES) ? emailSeriesFactory.fromJson(instance.toString()) : null;
     }
 
     @Override
     public final Email getEmail(String property) {
-        try {
-            return emailFactory.fromJson(instance.getAsJsonObject().get(property).toString());
-        }
-        catch (Exception e) {
-        }
-        return null;
+        JsonElement element = property(property);
+        return element == null ? null : emailFactory.fromJson(element.toString());
     }
 
     @Override
     public final EmailSeries getEmailSeries(String property) {
-        try {
-            return emailSeriesFactory.fromJson(instance.getAsJsonObject().get(property).toString());
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return toEmailSeries(property(property));
     }
 
     @Override
     public DataRepresentation add(String property, DataRepresentation value) {
         try {
-            getOrCreateJsonObject().add(property, toJsonElement(value));
+            putProperty(property, toJsonElement(value));
         }
         catch (Exception e) {
         }
@@ -779,12 +883,11 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
     public DataRepresentation add(String property, DataRepresentation... values) {
         try {
             if (values == null) {
-                getOrCreateJsonObject().add(property, JsonNull.INSTANCE);
+                putProperty(property, JsonNull.INSTANCE);
                 return this;
             }
-            JsonArray jsonArray = new JsonArray();
-            Stream.of(values).forEach(it -> jsonArray.add(toJsonElement(it)));
-            return add(property, jsonArray);
+            putProperty(property, toJsonElement(values));
+            return this;
         }
         catch (Exception e) {
         }
@@ -793,41 +896,30 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
 
     @Override
     public final Boolean hasProperties(String property) {
-        try {
-            return get(property).hasProperties();
-        } catch(Exception e) {
-            return false;
-        }
+        JsonElement element = property(property);
+        return element != null && element.isJsonObject();
     }
 
     @Override
     public final Boolean hasProperties(int position) {
-        try {
-            return get(position).hasProperties();
-        } catch(Exception e) {
-            return false;
-        }
+        JsonElement element = element(position);
+        return element != null && element.isJsonObject();
     }
 
     @Override
     public final Boolean hasProperties() {
-        return instance.isJsonObject();
+        return instance != null && instance.isJsonObject();
     }
 
     @Override
     public DataRepresentation get(String property) {
-        try {
-            return this.fromJson(instance.getAsJsonObject().get(property).toString());
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return createView(property(property));
     }
 
     @Override
     public DataRepresentation add(String property, CoreType value) {
         try {
-            getOrCreateJsonObject().add(property, toJsonElement(value));
+            putProperty(property, toJsonElement(value));
         }
         catch (Exception e) {
         }
@@ -837,7 +929,7 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
     @Override
     public DataRepresentation add(String property, CoreType... values) {
         if (values == null || values.length == 0) {
-            getOrCreateJsonObject().add(property, values == null ? JsonNull.INSTANCE : new JsonArray());
+            putProperty(property, values == null ? JsonNull.INSTANCE : new JsonArray());
             return this;
         }
         try {
@@ -845,7 +937,7 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
             for (CoreType value : values) {
                 jsonArray.add(toJsonElement(value));
             }
-            getOrCreateJsonObject().add(property, jsonArray);
+            putProperty(property, jsonArray);
         }
         catch (Exception e) {
         }
@@ -853,79 +945,93 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
     }
 
     public final <T extends GeneratedCoreType> T as(Class<T> generatedCoreTypeClass) {
+        return get(instance, generatedCoreTypeClass);
+    }
+
+    @Override
+    public final <T extends GeneratedCoreType> T get(String property, Class<T> generatedCoreTypeClass) {
+        return get(property(property), generatedCoreTypeClass);
+    }
+
+    @SuppressWarnings("unchecked")
+    private final <T extends GeneratedCoreType> T get(JsonElement jsonElement, Class<T> generatedCoreTypeClass) {
+        if (jsonElement == null || jsonElement.isJsonNull()) {
+            return null;
+        }
         try {
-            return get(instance, generatedCoreTypeClass);
+            return (T) (Object) GENERATED_CORE_TYPE_READERS.get(generatedCoreTypeClass).invokeExact(jsonElement);
         }
-        catch (Exception e) {
+        catch (Throwable e) {
         }
         return null;
     }
 
-    @Override
-    public final <T extends GeneratedCoreType> T get(String property, Class<T> generatedCoreTypeClass) {
+    /**
+     * Resolves, once per class, the static reader of a generated type as a
+     * (JsonElement)Object handle. A fromJsonElement(JsonElement) method is
+     * preferred, as it reads the node without a String round-trip, and must not
+     * modify the node it is given; otherwise fromJson(String) is used.
+     */
+    private static final MethodHandle findGeneratedCoreTypeReader(Class<?> generatedCoreTypeClass) {
+        MethodType readerType = MethodType.methodType(Object.class, JsonElement.class);
         try {
-            return get(instance.getAsJsonObject().get(property), generatedCoreTypeClass);
+            Method method = findStaticMethod(generatedCoreTypeClass, "fromJsonElement", JsonElement.class);
+            if (method != null) {
+                return MethodHandles.lookup().unreflect(method).asType(readerType);
+            }
+            method = findStaticMethod(generatedCoreTypeClass, "fromJson", String.class);
+            if (method != null) {
+                MethodHandle cleanString = MethodHandles.lookup().findStatic(DataRepresentationImpl.class, "getCleanString", MethodType.methodType(String.class, JsonElement.class));
+                return MethodHandles.filterArguments(MethodHandles.lookup().unreflect(method), 0, cleanString).asType(readerType);
+            }
         }
         catch (Exception e) {
         }
-        return null;
+        return MethodHandles.dropArguments(MethodHandles.constant(Object.class, null), 0, JsonElement.class);
     }
 
-    @SuppressWarnings("unchecked")
-    private final <T extends GeneratedCoreType> T get(JsonElement jsonElement, Class<T> generatedCoreTypeClass) {
-        if (jsonElement == null || jsonElement.isJsonNull()) {
-            return null;
-        }
+    private static final Method findStaticMethod(Class<?> type, String name, Class<?> parameterType) {
+        Method method = null;
         try {
-            Method method = generatedCoreTypeClass.getDeclaredMethod("fromJson", String.class);
-            method.setAccessible(true);
-            return (T) method.invoke(null, getCleanString(jsonElement));
+            method = type.getDeclaredMethod(name, parameterType);
         }
         catch (Exception e) {
             try {
-                Method method = generatedCoreTypeClass.getMethod("fromJson", String.class);
-                method.setAccessible(true);
-                return (T) method.invoke(null, getCleanString(jsonElement));
+                method = type.getMethod(name, parameterType);
             }
             catch (Exception ex) {
             }
         }
-        return null;
+        if (method == null || !Modifier.isStatic(method.getModifiers())) {
+            return null;
+        }
+        method.setAccessible(true);
+        return method;
     }
 
     @Override
     public final Boolean hasLength() {
-        try {
-            return instance.isJsonArray();
-        }
-        catch (Exception e) {
-        }
-        return false;
+        return instance != null && instance.isJsonArray();
     }
 
     @Override
     public final Integer length() {
-        try {
-            return instance.getAsJsonArray().size();
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return hasLength() ? instance.getAsJsonArray().size() : null;
     }
 
     @Override
     public final Boolean isEmpty() {
-        return (hasLength() && length() == 0) || (hasProperties() && getProperties().isEmpty());
+        return isEmpty(instance);
     }
 
     @Override
     public final Boolean isEmpty(String property) {
-        return (hasLength(property) && getLength(property) == 0) || (hasProperties(property) && getProperties(property).isEmpty());
+        return isEmpty(property(property));
     }
 
     @Override
     public final Boolean isEmpty(int position) {
-        return (hasLength(position) && getLength(position) == 0) || (hasProperties(position) && getProperties(position).isEmpty());
+        return isEmpty(element(position));
     }
 
     @Override
@@ -955,6 +1061,7 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
             }
             Collections.sort(positions);
             Collections.reverse(positions);
+            beforeChange();
             JsonArray jsonArray = instance.getAsJsonArray();
             for (int pos : positions) {
                 jsonArray.remove(pos);
@@ -966,31 +1073,22 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
 
     @Override
     public final Boolean isText(int position) {
-        return get(position).isText();
+        return JsonElementKind.is(JsonElementKind.of(element(position)), JsonElementKind.TEXT);
     }
 
     @Override
     public final Boolean isTextSeries(int position) {
-        return getTextSeries(position) != null;
+        return JsonElementKind.is(JsonElementKind.seriesOf(element(position)), JsonElementKind.TEXT_SERIES);
     }
 
     @Override
     public final String getText(int position) {
-        try {
-            return getCleanString(instance.getAsJsonArray().get(position));
-        } catch (Exception e) {
-        }
-        return null;
+        return toText(element(position));
     }
 
     @Override
     public final TextSeries getTextSeries(int position) {
-        try {
-            return textSeriesFactory.fromJson(instance.getAsJsonArray().get(position).toString());
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return toTextSeries(element(position));
     }
 
     @Override
@@ -1034,27 +1132,17 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
 
     @Override
     public final Boolean isDigitSeries(int position) {
-        return getDigitSeries(position) != null;
+        return JsonElementKind.is(JsonElementKind.seriesOf(element(position)), JsonElementKind.DIGIT_SERIES);
     }
 
     @Override
     public final Long getDigit(int position) {
-        try {
-            return instance.getAsJsonArray().get(position).getAsLong();
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return toDigit(element(position));
     }
 
     @Override
     public final DigitSeries getDigitSeries(int position) {
-        try {
-            return digitSeriesFactory.fromJson(instance.getAsJsonArray().get(position).toString());
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return toDigitSeries(element(position));
     }
 
     @Override
@@ -1098,27 +1186,17 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
 
     @Override
     public final Boolean isRealDigitSeries(int position) {
-        return getRealDigitSeries(position) != null;
+        return JsonElementKind.is(JsonElementKind.seriesOf(element(position)), JsonElementKind.REAL_DIGIT_SERIES);
     }
 
     @Override
     public final Double getRealDigit(int position) {
-        try {
-            return instance.getAsJsonArray().get(position).getAsDouble();
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return toRealDigit(element(position));
     }
 
     @Override
     public final RealDigitSeries getRealDigitSeries(int position) {
-        try {
-            return realDigitSeriesFactory.fromJson(instance.getAsJsonArray().get(position).toString());
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return toRealDigitSeries(element(position));
     }
 
     @Override
@@ -1162,27 +1240,17 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
 
     @Override
     public final Boolean isTruthSeries(int position) {
-        return getTruthSeries(position) != null;
+        return JsonElementKind.is(JsonElementKind.seriesOf(element(position)), JsonElementKind.TRUTH_SERIES);
     }
 
     @Override
     public final Boolean getTruth(int position) {
-        try {
-            return booleanize(instance.getAsJsonArray().get(position));
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return booleanize(element(position));
     }
 
     @Override
     public final TruthSeries getTruthSeries(int position) {
-        try {
-            return truthSeriesFactory.fromJson(instance.getAsJsonArray().get(position).toString());
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return toTruthSeries(element(position));
     }
 
     @Override
@@ -1226,27 +1294,18 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
 
     @Override
     public final Boolean isEmailSeries(int position) {
-        return getEmailSeries(position) != null;
+        return JsonElementKind.is(JsonElementKind.seriesOf(element(position)), JsonElementKind.EMAIL_SERIES);
     }
 
     @Override
     public final Email getEmail(int position) {
-        try {
-            return emailFactory.create(instance.getAsJsonArray().get(position).getAsString());
-        }
-        catch (Exception e) {
-        }
-        return null;
+        JsonElement element = element(position);
+        return JsonElementKind.is(JsonElementKind.of(element), JsonElementKind.STRING) ? emailFactory.create(element.getAsString()) : null;
     }
 
     @Override
     public final EmailSeries getEmailSeries(int position) {
-        try {
-            return emailSeriesFactory.fromJson(instance.getAsJsonArray().get(position).toString());
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return toEmailSeries(element(position));
     }
 
     @Override
@@ -1285,12 +1344,7 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
 
     @Override
     public DataRepresentation get(int position) {
-        try {
-            return fromJson(instance.getAsJsonArray().get(position).toString());
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return createView(element(position));
     }
 
     @Override
@@ -1337,10 +1391,46 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
         return this;
     }
 
+    /**
+     * Child views wrap the parent's node as-is and are copy-on-write: the node is
+     * deep-copied the first time the view is mutated, so the parent is never
+     * affected and navigation never re-serializes the subtree.
+     */
+    DataRepresentation createView(JsonElement element) {
+        return element == null ? null : new DataRepresentationImpl(this, element, true);
+    }
+
+    /**
+     * View over this whole node. The node is marked shared first, so the next
+     * mutation of this instance copies it instead of changing the view.
+     */
+    final DataRepresentation createSelfView() {
+        if (instance == null) {
+            return null;
+        }
+        shared = true;
+        return createView(instance);
+    }
+
+    private final void beforeChange() {
+        kind = JsonElementKind.UNKNOWN;
+        seriesKind = JsonElementKind.UNKNOWN;
+        if (shared) {
+            instance = instance.deepCopy();
+            shared = false;
+            propertyIndex = null;
+            propertyLookups = 0;
+        }
+    }
+
     private final DataRepresentation createWork(String json) {
         return new DataRepresentationImpl(json, textSeriesFactory, digitSeriesFactory, realDigitSeriesFactory, truthSeriesFactory, emailFactory, emailSeriesFactory, logMessageTypeProvider);
     }
 
+    private final DataRepresentation wrap(JsonElement element) {
+        return new DataRepresentationImpl(this, element == null ? JsonNull.INSTANCE : element, false);
+    }
+
     @Override
     public final DataRepresentation create() {
         return createWork(null);
@@ -1351,16 +1441,58 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
         return createWork(json);
     }
 
+    public final DataRepresentation fromFile(String path) {
+        return wrap(readFile(path));
+    }
+
+    public final DataRepresentation fromResource(String name) {
+        return wrap(readResource(name));
+    }
+
+    public final DataRepresentation fromUrl(String url) {
+        return wrap(readUrl(url));
+    }
+
+    /**
+     * The value is returned as soon as its last token has been read; the
+     * reader is neither drained nor closed.
+     */
+    public final DataRepresentation fromReader(Reader reader) {
+        return wrap(reader == null ? null : parseValue(reader));
+    }
+
+    /**
+     * Same as fromReader, decoding the stream as UTF-8.
+     */
+    public final DataRepresentation fromInputStream(InputStream inputStream) {
+        return wrap(parseValue(inputStream));
+    }
+
+    public final DataRepresentation fromBytes(byte[] bytes) {
+        return bytes == null ? wrap(null) : fromBytes(bytes, 0, bytes.length);
+    }
+
+    public final DataRepresentation fromBytes(byte[] bytes, int offset, int length) {
+        return wrap(bytes == null ? null : parseDocument(new ByteArrayInputStream(bytes, offset, length)));
+    }
+
+    public final DataRepresentation fromByteBuffer(ByteBuffer byteBuffer) {
+        return wrap(byteBuffer == null ? null : parseDocument(JsonStreams.asInputStream(byteBuffer)));
+    }
+
     @Override
     public final DataRepresentation fromObject(Object object) {
         if (object == null) {
             return null;
         }
-        return fromJson(object instanceof CoreType ? ((CoreType) object).toJson() : GSON.toJson(object));
+        if (object instanceof CoreType && !(object instanceof DataRepresentationImpl)) {
+            return fromJson(((CoreType) object).toJson());
+        }
+        return new DataRepresentationImpl(this, toJsonElement(object), true);
     }
 
     final static Stream<String> getStrings(String json) {
-        if (json == null || json.trim().isEmpty() || json.replace(" ", "").toLowerCase().equals("null")) {
+        if (JsonArrays.isNull(json)) {
             return null;
         }
         JsonArray jsonArray = GSON.fromJson(json, JsonElement.class).getAsJsonArray();
@@ -1368,27 +1500,17 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
         for (JsonElement jsonElement : jsonArray) {
             strings.add(getCleanString(jsonElement));
         }
-        return strings.parallelStream();
+        return strings.stream();
     }
 
     @Override
     public final TextSeries getProperties() {
-        try {
-            return textSeriesFactory.create(instance.getAsJsonObject().entrySet().parallelStream().map(it -> it.getKey()).toArray(String[]::new));
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return toProperties(instance);
     }
 
     @Override
     public final <T extends GeneratedCoreType> T get(int position, Class<T> generatedCoreTypeClass) {
-        try {
-            return get(instance.getAsJsonArray().get(position), generatedCoreTypeClass);
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return get(element(position), generatedCoreTypeClass);
     }
 
     @Override
@@ -1417,88 +1539,49 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
 
     @Override
     public final Boolean isNull(int position) {
-        JsonElement element = null;
-        try {
-            element = instance.getAsJsonArray().get(position);
-        }
-        catch (Exception e) {
-        }
+        JsonElement element = element(position);
         return element == null || element.isJsonNull();
     }
 
     @Override
     public final Boolean isSimple() {
-        JsonElement element = null;
-        try {
-            element = instance.getAsJsonPrimitive();
-        }
-        catch (Exception e) {
-        }
-        return element != null && element.isJsonPrimitive();
+        return instance != null && instance.isJsonPrimitive();
     }
 
     @Override
     public final Boolean isSimple(String property) {
-        JsonElement element = null;
-        try {
-            element = instance.getAsJsonObject().get(property);
-        }
-        catch (Exception e) {
-        }
+        JsonElement element = property(property);
         return element != null && element.isJsonPrimitive();
     }
 
     @Override
     public final Boolean isSimple(int position) {
-        JsonElement element = null;
-        try {
-            element = instance.getAsJsonArray().get(position);
-        }
-        catch (Exception e) {
-        }
+        JsonElement element = element(position);
         return element != null && element.isJsonPrimitive();
     }
 
     @Override
     public final Boolean hasLength(String property) {
-        JsonElement element = null;
-        try {
-            element = instance.getAsJsonObject().get(property);
-        }
-        catch (Exception e) {
-        }
+        JsonElement element = property(property);
         return element != null && element.isJsonArray();
     }
 
     @Override
     public final Boolean hasLength(int position) {
-        JsonElement element = null;
-        try {
-            element = instance.getAsJsonArray().get(position);
-        }
-        catch (Exception e) {
-        }
+        JsonElement element = element(position);
         return element != null && element.isJsonArray();
     }
 
     @Override
     public final Integer getLength(String property) {
-        try {
-            return instance.getAsJsonObject().get(property).getAsJsonArray().size();
-        }
-        catch (Exception e) {
-        }
-        return null;
+        JsonElement element = property(property);
+        return element != null && element.isJsonArray() ? element.getAsJsonArray().size() : null;
     }
 
     @Override
     public final Integer getLength(int position) {
-        try {
-            return instance.getAsJsonArray().get(position).getAsJsonArray().size();
-        }
-        catch (Exception e) {
-        }
-        return null;
+        JsonElement element = element(position);
+        return element != null && element.isJsonArray() ? element.getAsJsonArray().size() : null;
     }
 
 
@@ -1509,82 +1592,190 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
 
     @Override
     public final String firstAsText() {
-        return get(0).asText();
+        DataRepresentation first = first();
+        return first == null ? null : first.asText();
     }
 
     @Override
     public final TextSeries firstAsTextSeries() {
-        return get(0).asTextSeries();
+        DataRepresentation first = first();
+        return first == null ? null : first.asTextSeries();
     }
 
     @Override
     public final Long firstAsDigit() {
-        return get(0).asDigit();
+        DataRepresentation first = first();
+        return first == null ? null : first.asDigit();
     }
 
     @Override
     public final DigitSeries firstAsDigitSeries() {
-        return get(0).asDigitSeries();
+        DataRepresentation first = first();
+        return first == null ? null : first.asDigitSeries();
     }
 
     @Override
     public final Double firstAsRealDigit() {
-        return get(0).asRealDigit();
+        DataRepresentation first = first();
+        return first == null ? null : first.asRealDigit();
     }
 
     @Override
     public final RealDigitSeries firstAsRealDigitSeries() {
-        return get(0).asRealDigitSeries();
+        DataRepresentation first = first();
+        return first == null ? null : first.asRealDigitSeries();
     }
 
     @Override
     public final Boolean firstAsTruth() {
-        return get(0).asTruth();
+        DataRepresentation first = first();
+        return first == null ? null : first.asTruth();
     }
 
     @Override
     public final TruthSeries firstAsTruthSeries() {
-        return get(0).asTruthSeries();
+        DataRepresentation first = first();
+        return first == null ? null : first.asTruthSeries();
     }
 
     @Override
     public final Email firstAsEmail() {
-        return get(0).asEmail();
+        DataRepresentation first = first();
+        return first == null ? null : first.asEmail();
     }
 
     @Override
     public final EmailSeries firstAsEmailSeries() {
-        return get(0).asEmailSeries();
+        DataRepresentation first = first();
+        return first == null ? null : first.asEmailSeries();
     }
 
     @Override
     public final <T extends GeneratedCoreType> T firstAs(Class<T> generatedCoreTypeClass) {
-        return get(0).as(generatedCoreTypeClass);
+        return get(0, generatedCoreTypeClass);
     }
 
     @Override
     public final TextSeries getProperties(int position) {
-        try {
-            return textSeriesFactory.create(instance.getAsJsonArray().get(position).getAsJsonObject().entrySet().parallelStream().map(it -> it.getKey()).toArray(String[]::new));
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return toProperties(element(position));
     }
 
     @Override
     public final TextSeries getProperties(String property) {
-        try {
-            return textSeriesFactory.create(instance.getAsJsonObject().get(property).getAsJsonObject().entrySet().parallelStream().map(it -> it.getKey()).toArray(String[]::new));
-        }
-        catch (Exception e) {
-        }
-        return null;
+        return toProperties(property(property));
     }
 
     @Override
     public final Iterator<DataRepresentation> iterator() {
-        return hasProperties() ? new ObjectIterator(getProperties()) : new ArrayIterator(isNull() ? 0 : length());
+        return hasProperties() ? new ObjectIterator(getProperties()) : new ArrayIterator(hasLength() ? length() : 0);
+    }
+
+    /**
+     * Gson keeps object members in a sorted tree, so a lookup is logarithmic.
+     * Objects with many members that are read repeatedly also get a hashed
+     * index, built once and then kept in sync by putProperty and remove, so
+     * interleaved lookups and additions, as in merge, stay constant-time.
+     * The index is dropped only when the instance itself is replaced. Views
+     * doing a few lookups never pay for building one.
+     */
+    private final JsonElement property(String property) {
+        if (property == null || instance == null || !instance.isJsonObject()) {
+            return null;
+        }
+        Map<String, JsonElement> index = propertyIndex;
+        if (index != null) {
+            return index.get(property);
+        }
+        JsonObject jsonObject = instance.getAsJsonObject();
+        if (jsonObject.size() < PROPERTY_INDEX_THRESHOLD || ++propertyLookups < PROPERTY_INDEX_THRESHOLD) {
+            return jsonObject.get(property);
+        }
+        index = new HashMap<>(jsonObject.size() * 2);
+        for (Map.Entry<String, JsonElement> entry : jsonObject.entrySet()) {
+            index.put(entry.getKey(), entry.getValue());
+        }
+        propertyIndex = index;
+        return index.get(property);
+    }
+
+    private final void putProperty(String property, JsonElement value) {
+        getOrCreateJsonObject().add(property, value);
+        Map<String, JsonElement> index = propertyIndex;
+        if (index != null) {
+            index.put(property, value == null ? JsonNull.INSTANCE : value);
+        }
+    }
+
+    private final boolean is(int flag) {
+        if (kind == JsonElementKind.UNKNOWN) {
+            kind = JsonElementKind.of(instance);
+        }
+        return JsonElementKind.is(kind, flag);
+    }
+
+    private final boolean isSeries(int flag) {
+        if (seriesKind == JsonElementKind.UNKNOWN) {
+            seriesKind = JsonElementKind.seriesOf(instance);
+        }
+        return JsonElementKind.is(seriesKind, flag);
+    }
+
+    private final JsonElement element(int position) {
+        if (instance == null || !instance.isJsonArray()) {
+            return null;
+        }
+        JsonArray jsonArray = instance.getAsJsonArray();
+        return position < 0 || position >= jsonArray.size() ? null : jsonArray.get(position);
+    }
+
+    private static final Boolean isEmpty(JsonElement element) {
+        if (element == null) {
+            return false;
+        }
+        if (element.isJsonArray()) {
+            return element.getAsJsonArray().size() == 0;
+        }
+        return element.isJsonObject() && element.getAsJsonObject().size() == 0;
+    }
+
+    private final String toText(JsonElement element) {
+        return element == null ? null : getCleanString(element);
+    }
+
+    private final Long toDigit(JsonElement element) {
+        return JsonElementKind.is(JsonElementKind.of(element), JsonElementKind.DIGIT) ? element.getAsLong() : null;
+    }
+
+    private final Double toRealDigit(JsonElement element) {
+        return JsonElementKind.is(JsonElementKind.of(element), JsonElementKind.REAL_DIGIT) ? element.getAsDouble() : null;
+    }
+
+    private final LogMessageType toLogMessageType(JsonElement element) {
+        return JsonElementKind.is(JsonElementKind.of(element), JsonElementKind.STRING) ? logMessageTypeProvider.getByName(element.getAsString()) : null;
+    }
+
+    private final TextSeries toProperties(JsonElement element) {
+        return element == null || !element.isJsonObject() ? null : textSeriesFactory.create(element.getAsJsonObject().keySet());
+    }
+
+    private final TextSeries toTextSeries(JsonElement element) {
+        return JsonElementKind.is(JsonElementKind.seriesOf(element), JsonElementKind.TEXT_SERIES) ? textSeriesFactory.fromJson(element.toString()) : null;
+    }
+
+    private final DigitSeries toDigitSeries(JsonElement element) {
+        return JsonElementKind.is(JsonElementKind.seriesOf(element), JsonElementKind.DIGIT_SERIES) ? digitSeriesFactory.fromJson(element.toString()) : null;
+    }
+
+    private final RealDigitSeries toRealDigitSeries(JsonElement element) {
+        return JsonElementKind.is(JsonElementKind.seriesOf(element), JsonElementKind.REAL_DIGIT_SERIES) ? realDigitSeriesFactory.fromJson(element.toString()) : null;
+    }
+
+    private final TruthSeries toTruthSeries(JsonElement element) {
+        return JsonElementKind.is(JsonElementKind.seriesOf(element), JsonElementKind.TRUTH_SERIES) ? truthSeriesFactory.fromJson(element.toString()) : null;
+    }
+
+    private final EmailSeries toEmailSeries(JsonElement element) {
+        return JsonElementKind.is(JsonElementKind.seriesOf(element), JsonElementKind.EMAIL_SERIES) ? emailSeriesFactory.fromJson(element.toString()) : null;
     }
 
     private final JsonObject getOrCreateJsonObject() {
@@ -1596,6 +1787,7 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
     }
 
     private final JsonElement getOrCreateJsonObjectOrJsonArray(boolean object) {
+        beforeChange();
         if (instance == null || instance instanceof JsonNull) {
             try {
                 instance = object ? new JsonObject() : new JsonArray();
@@ -1647,7 +1839,50 @@ class DataRepresentationImpl implements DataRepresentation, DataRepresentationFa
     }
 
     private final JsonElement toJsonElement(Object object) {
-        return object == null ? JsonNull.INSTANCE : GSON.fromJson(object instanceof CoreType ? ((CoreType) object).toJson() : GSON.toJson(object), JsonElement.class);
+        if (object == null) {
+            return JsonNull.INSTANCE;
+        }
+        if (object instanceof DataRepresentationImpl) {
+            return ((DataRepresentationImpl) object).toTransferableJsonElement();
+        }
+        if (object instanceof String) {
+            return new JsonPrimitive((String) object);
+        }
+        if (object instanceof Number) {
+            return new JsonPrimitive((Number) object);
+        }
+        if (object instanceof Boolean) {
+            return new JsonPrimitive((Boolean) object);
+        }
+        if (object instanceof EmailImpl) {
+            return new JsonPrimitive(object.toString());
+        }
+        if (object instanceof Object[]) {
+            Object[] array = (Object[]) object;
+            JsonArray jsonArray = new JsonArray(array.length);
+            for (Object item : array) {
+                jsonArray.add(toJsonElement(item));
+            }
+            return jsonArray;
+        }
+        if (object instanceof TextSeries || object instanceof DigitSeries || object instanceof RealDigitSeries || object instanceof TruthSeries || object instanceof EmailSeries || !(object instanceof CoreType) && object instanceof Iterable) {
+            JsonArray jsonArray = new JsonArray();
+            for (Object item : (Iterable<?>) object) {
+                jsonArray.add(toJsonElement(item));
+            }
+            return jsonArray;
+        }
+        if (object instanceof CoreType) {
+            return GSON.fromJson(((CoreType) object).toJson(), JsonElement.class);
+        }
+        return GSON.toJsonTree(object);
+    }
+
+    private final JsonElement toTransferableJsonElement() {
+        if (instance == null) {
+            return JsonNull.INSTANCE;
+        }
+        return shared ? instance : instance.deepCopy();
     }
 
     @Override
@@ -0,0 +1,58 @@
+/**
+ *    Copyright 2019 MetaRing s.r.l.
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.metaring.framework;
+
+/**
+ * Receives the content of a JSON document as a flat sequence of events, either
+ * from an already parsed DataRepresentation or straight from a raw stream.
+ * Numbers are classified by the way they are written in JSON: as long when
+ * they are an integer literal that fits, such as 3 but not 3.0 or 3e0, as
+ * double otherwise. A parsed tree and the stream of the same document report
+ * the same events. Every method does nothing by default.
+ */
+public interface DataRepresentationVisitor {
+
+    default void startObject() {
+    }
+
+    default void key(String key) {
+    }
+
+    default void endObject() {
+    }
+
+    default void startArray() {
+    }
+
+    default void endArray() {
+    }
+
+    default void value(String value) {
+    }
+
+    default void value(long value) {
+    }
+
+    default void value(double value) {
+    }
+
+    default void value(boolean value) {
+    }
+
+    default void nullValue() {
+    }
+}
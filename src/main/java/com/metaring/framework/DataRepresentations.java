@@ -0,0 +1,179 @@
+/**
+ *    Copyright 2019 MetaRing s.r.l.
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.metaring.framework;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonReader;
+
+import com.metaring.framework.type.DataRepresentation;
+import com.metaring.framework.type.factory.DataRepresentationFactory;
+
+/**
+ * Streaming entry points for callers that only hold a DataRepresentation or
+ * its factory. Those of this package parse and write without an intermediate
+ * String; any other implementation is reached through its JSON.
+ * <p>
+ * Readers and input streams are read up to the end of the value only, so they
+ * can stay open; strings, bytes, buffers, files, resources and URLs must hold
+ * exactly one value, and are invalid with anything but whitespace after it.
+ */
+public final class DataRepresentations {
+
+    private DataRepresentations() {
+    }
+
+    public static final DataRepresentation fromFile(DataRepresentationFactory factory, String path) {
+        if (factory instanceof DataRepresentationImpl) {
+            return ((DataRepresentationImpl) factory).fromFile(path);
+        }
+        return create(factory, DataRepresentationImpl.readFile(path));
+    }
+
+    public static final DataRepresentation fromResource(DataRepresentationFactory factory, String name) {
+        if (factory instanceof DataRepresentationImpl) {
+            return ((DataRepresentationImpl) factory).fromResource(name);
+        }
+        return create(factory, DataRepresentationImpl.readResource(DataRepresentations.class, name));
+    }
+
+    public static final DataRepresentation fromUrl(DataRepresentationFactory factory, String url) {
+        if (factory instanceof DataRepresentationImpl) {
+            return ((DataRepresentationImpl) factory).fromUrl(url);
+        }
+        return create(factory, DataRepresentationImpl.readUrl(url));
+    }
+
+    public static final DataRepresentation fromReader(DataRepresentationFactory factory, Reader reader) {
+        if (factory instanceof DataRepresentationImpl) {
+            return ((DataRepresentationImpl) factory).fromReader(reader);
+        }
+        return create(factory, reader == null ? null : DataRepresentationImpl.parseValue(reader));
+    }
+
+    /**
+     * The stream is decoded as UTF-8.
+     */
+    public static final DataRepresentation fromInputStream(DataRepresentationFactory factory, InputStream inputStream) {
+        if (factory instanceof DataRepresentationImpl) {
+            return ((DataRepresentationImpl) factory).fromInputStream(inputStream);
+        }
+        return create(factory, DataRepresentationImpl.parseValue(inputStream));
+    }
+
+    /**
+     * The bytes are decoded as UTF-8.
+     */
+    public static final DataRepresentation fromBytes(DataRepresentationFactory factory, byte[] bytes) {
+        return bytes == null ? create(factory, null) : fromBytes(factory, bytes, 0, bytes.length);
+    }
+
+    public static final DataRepresentation fromBytes(DataRepresentationFactory factory, byte[] bytes, int offset, int length) {
+        if (factory instanceof DataRepresentationImpl) {
+            return ((DataRepresentationImpl) factory).fromBytes(bytes, offset, length);
+        }
+        return create(factory, bytes == null ? null : DataRepresentationImpl.parseDocument(new InputStreamReader(new ByteArrayInputStream(bytes, offset, length), StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Reads the remaining bytes of the buffer as UTF-8, advancing its position.
+     */
+    public static final DataRepresentation fromByteBuffer(DataRepresentationFactory factory, ByteBuffer byteBuffer) {
+        if (factory instanceof DataRepresentationImpl) {
+            return ((DataRepresentationImpl) factory).fromByteBuffer(byteBuffer);
+        }
+        return create(factory, byteBuffer == null ? null : DataRepresentationImpl.parseDocument(JsonStreams.asInputStream(byteBuffer)));
+    }
+
+    public static final void writeTo(DataRepresentation dataRepresentation, Appendable appendable) throws IOException {
+        if (dataRepresentation instanceof DataRepresentationImpl) {
+            ((DataRepresentationImpl) dataRepresentation).writeTo(appendable);
+            return;
+        }
+        appendable.append(toJson(dataRepresentation));
+        if (appendable instanceof Writer) {
+            ((Writer) appendable).flush();
+        }
+    }
+
+    /**
+     * Writes UTF-8; the stream is flushed but not closed.
+     */
+    public static final void writeTo(DataRepresentation dataRepresentation, OutputStream outputStream) throws IOException {
+        if (dataRepresentation instanceof DataRepresentationImpl) {
+            ((DataRepresentationImpl) dataRepresentation).writeTo(outputStream);
+            return;
+        }
+        writeTo(dataRepresentation, JsonStreams.newWriter(outputStream));
+    }
+
+    /**
+     * Writes UTF-8 from the position of the buffer, which must have room for
+     * the whole document.
+     */
+    public static final void writeTo(DataRepresentation dataRepresentation, ByteBuffer byteBuffer) throws IOException {
+        if (dataRepresentation instanceof DataRepresentationImpl) {
+            ((DataRepresentationImpl) dataRepresentation).writeTo(byteBuffer);
+            return;
+        }
+        writeTo(dataRepresentation, JsonStreams.asOutputStream(byteBuffer));
+    }
+
+    public static final void accept(DataRepresentation dataRepresentation, DataRepresentationVisitor visitor) {
+        if (dataRepresentation instanceof DataRepresentationImpl) {
+            ((DataRepresentationImpl) dataRepresentation).accept(visitor);
+            return;
+        }
+        JsonEvents.visit(DataRepresentationImpl.parseDocument(new StringReader(toJson(dataRepresentation))), visitor);
+    }
+
+    /**
+     * Reports the events of the value read from the reader without building
+     * it; the reader is left open right after the value.
+     */
+    public static final void visit(Reader reader, DataRepresentationVisitor visitor) throws IOException {
+        JsonReader jsonReader = new JsonReader(reader);
+        jsonReader.setLenient(true);
+        JsonEvents.visit(jsonReader, visitor);
+    }
+
+    /**
+     * Same as visit(Reader, DataRepresentationVisitor), decoding the stream as
+     * UTF-8.
+     */
+    public static final void visit(InputStream inputStream, DataRepresentationVisitor visitor) throws IOException {
+        visit(new InputStreamReader(inputStream, StandardCharsets.UTF_8), visitor);
+    }
+
+    private static final DataRepresentation create(DataRepresentationFactory factory, JsonElement element) {
+        return factory == null ? null : factory.fromJson(element == null ? "null" : element.toString());
+    }
+
+    private static final String toJson(DataRepresentation dataRepresentation) {
+        return dataRepresentation == null ? "null" : dataRepresentation.toJson();
+    }
+}
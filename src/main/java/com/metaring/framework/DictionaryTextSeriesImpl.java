@@ -0,0 +1,797 @@
+/**
+ *    Copyright 2019 MetaRing s.r.l.
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.metaring.framework;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.linq4j.Linq4j;
+
+import com.metaring.framework.type.series.TextSeries;
+
+/**
+ * TextSeries for long series made of few distinct values: every distinct value
+ * is stored once in a dictionary and items are int codes into it. Lookups,
+ * equality between series sharing a dictionary and JSON output work on codes,
+ * each dictionary entry being escaped at most once. The dictionary can keep
+ * its entries as Strings or, to save memory at the cost of decoding on read,
+ * as UTF-8 bytes in a single arena. Like ArrayList, it is not thread-safe,
+ * and neither is a dictionary shared between series.
+ */
+final class DictionaryTextSeriesImpl extends AbstractList<String> implements TextSeries, RandomAccess, Serializable {
+
+    private static final long serialVersionUID = -5120446573064402137L;
+    private static final int NULL_CODE = -1;
+    private static final int ABSENT = -2;
+    private static final int[] EMPTY = {};
+
+    private final Dictionary dictionary;
+    private transient int[] codes;
+    private transient int offset;
+    private transient boolean shared;
+    private int size;
+    private final boolean readOnly;
+    private transient Enumerable<String> internalEnumerable;
+
+    DictionaryTextSeriesImpl(boolean utf8Arena) {
+        this(new Dictionary(utf8Arena));
+    }
+
+    DictionaryTextSeriesImpl(Iterable<String> iterable, boolean utf8Arena) {
+        this(utf8Arena);
+        if (iterable instanceof Collection) {
+            ensureCapacity(((Collection<String>) iterable).size());
+        }
+        for (String value : iterable) {
+            addCode(dictionary.intern(value));
+        }
+    }
+
+    private DictionaryTextSeriesImpl(Dictionary dictionary) {
+        super();
+        this.dictionary = dictionary;
+        codes = EMPTY;
+        readOnly = false;
+    }
+
+    private DictionaryTextSeriesImpl(Dictionary dictionary, int[] codes, int offset, int size, boolean readOnly) {
+        super();
+        this.dictionary = dictionary;
+        this.codes = codes;
+        this.offset = offset;
+        this.size = size;
+        this.shared = true;
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * Creates an empty series sharing this one's dictionary, so that values
+     * already seen are not stored again and equality is a code comparison.
+     */
+    public DictionaryTextSeriesImpl withSameDictionary() {
+        return new DictionaryTextSeriesImpl(dictionary);
+    }
+
+    public int distinctCount() {
+        return dictionary.count;
+    }
+
+    @Override
+    public String toJson() {
+        StringBuilder sb = new StringBuilder(2 + size * 8);
+        try {
+            writeTo(sb);
+        }
+        catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return sb.toString();
+    }
+
+    public void writeTo(Appendable appendable) throws IOException {
+        appendable.append('[');
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                appendable.append(',');
+            }
+            int code = codes[offset + i];
+            if (code == NULL_CODE) {
+                JsonStreams.writeNull(appendable);
+            }
+            else {
+                appendable.append(dictionary.escaped(code));
+            }
+        }
+        appendable.append(']');
+    }
+
+    /**
+     * Writes the UTF-8 bytes of each entry, escaped once, without going
+     * through a character encoder.
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        OutputStream out = new BufferedOutputStream(outputStream, JsonStreams.CHUNK_SIZE);
+        writeBytes(out);
+        out.flush();
+    }
+
+    public void writeTo(ByteBuffer byteBuffer) throws IOException {
+        writeBytes(JsonStreams.asOutputStream(byteBuffer));
+    }
+
+    private void writeBytes(OutputStream out) throws IOException {
+        out.write('[');
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            int code = codes[offset + i];
+            if (code == NULL_CODE) {
+                out.write('n');
+                out.write('u');
+                out.write('l');
+                out.write('l');
+            }
+            else {
+                dictionary.writeEscaped(code, out);
+            }
+        }
+        out.write(']');
+    }
+
+    @Override
+    public String[] toArray() {
+        String[] array = new String[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = valueOf(codes[offset + i]);
+        }
+        return array;
+    }
+
+    /**
+     * Linq4j enumerates the list itself, so the same instance stays valid
+     * across mutations.
+     */
+    @Override
+    public Enumerable<String> asEnumerable() {
+        return internalEnumerable != null ? internalEnumerable : (internalEnumerable = Linq4j.asEnumerable(this));
+    }
+
+    @Override
+    public boolean addAll(Enumerable<String> enumerable) {
+        return enumerable == null ? false : this.addAll(enumerable.toList());
+    }
+
+    @Override
+    public boolean containsAll(Enumerable<String> enumerable) {
+        return enumerable == null ? false : this.containsAll(enumerable.toList());
+    }
+
+    @Override
+    public boolean removeAll(Enumerable<String> enumerable) {
+        return enumerable == null ? false : this.removeAll(enumerable.toList());
+    }
+
+    @Override
+    public boolean retainAll(Enumerable<String> enumerable) {
+        return enumerable == null ? false : this.retainAll(enumerable.toList());
+    }
+
+    @Override
+    public boolean addAll(String[] array) {
+        return array == null ? false : this.addAll(Arrays.asList(array));
+    }
+
+    @Override
+    public boolean containsAll(String[] array) {
+        return array == null ? false : this.containsAll(Arrays.asList(array));
+    }
+
+    @Override
+    public boolean removeAll(String[] array) {
+        return array == null ? false : this.removeAll(Arrays.asList(array));
+    }
+
+    @Override
+    public boolean retainAll(String[] array) {
+        return array == null ? false : this.retainAll(Arrays.asList(array));
+    }
+
+    /**
+     * Items from (inclusive) to to (exclusive) as a series sharing this one's
+     * codes and dictionary: nothing is copied unless one of the two is
+     * modified later.
+     */
+    public DictionaryTextSeriesImpl slice(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("From: " + from + ", To: " + to + ", Size: " + size);
+        }
+        shared = true;
+        return new DictionaryTextSeriesImpl(dictionary, codes, offset + from, to - from, readOnly);
+    }
+
+    /**
+     * A snapshot of the current items that rejects any modification, sharing
+     * this series' codes until this series is modified.
+     */
+    public DictionaryTextSeriesImpl readOnlyView() {
+        shared = true;
+        return new DictionaryTextSeriesImpl(dictionary, codes, offset, size, true);
+    }
+
+    /**
+     * A new series on this one's dictionary with its items followed by those
+     * of the others; series on the same dictionary are copied code by code.
+     */
+    public DictionaryTextSeriesImpl concat(TextSeries... others) {
+        int total = size;
+        for (TextSeries other : others) {
+            total += other.size();
+        }
+        DictionaryTextSeriesImpl result = new DictionaryTextSeriesImpl(dictionary);
+        result.ensureCapacity(total);
+        result.addAll(this);
+        for (TextSeries other : others) {
+            result.addAll(other);
+        }
+        return result;
+    }
+
+    public void ensureCapacity(int capacity) {
+        beforeChange();
+        if (capacity > codes.length) {
+            int grown = codes.length + (codes.length >> 1);
+            codes = Arrays.copyOf(codes, Math.max(Math.max(grown, capacity), 10));
+        }
+    }
+
+    public void trimToSize() {
+        beforeChange();
+        if (codes.length > size) {
+            codes = size == 0 ? EMPTY : Arrays.copyOf(codes, size);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String get(int index) {
+        checkIndex(index);
+        return valueOf(codes[offset + index]);
+    }
+
+    @Override
+    public String set(int index, String element) {
+        beforeChange();
+        checkIndex(index);
+        int previous = codes[index];
+        codes[index] = dictionary.intern(element);
+        return valueOf(previous);
+    }
+
+    @Override
+    public boolean add(String e) {
+        beforeChange();
+        addCode(dictionary.intern(e));
+        return true;
+    }
+
+    @Override
+    public void add(int index, String element) {
+        beforeChange();
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int code = dictionary.intern(element);
+        ensureCapacity(size + 1);
+        System.arraycopy(codes, index, codes, index + 1, size - index);
+        codes[index] = code;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends String> c) {
+        beforeChange();
+        if (c.isEmpty()) {
+            return false;
+        }
+        ensureCapacity(size + c.size());
+        if (c instanceof DictionaryTextSeriesImpl && ((DictionaryTextSeriesImpl) c).dictionary == dictionary) {
+            DictionaryTextSeriesImpl other = (DictionaryTextSeriesImpl) c;
+            System.arraycopy(other.codes, other.offset, codes, size, other.size);
+            size += other.size;
+            modCount++;
+            return true;
+        }
+        for (String value : c) {
+            addCode(dictionary.intern(value));
+        }
+        return true;
+    }
+
+    @Override
+    public String remove(int index) {
+        beforeChange();
+        String previous = get(index);
+        System.arraycopy(codes, index + 1, codes, index, size - index - 1);
+        size--;
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int index = indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        beforeChange();
+        System.arraycopy(codes, toIndex, codes, fromIndex, size - toIndex);
+        size -= toIndex - fromIndex;
+        modCount++;
+    }
+
+    @Override
+    public void clear() {
+        beforeChange();
+        if (size > 0) {
+            size = 0;
+            modCount++;
+        }
+    }
+
+    /**
+     * The collection is queried once per distinct value rather than once per
+     * item.
+     */
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        return removeCodes(c::contains);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        return removeCodes(value -> !c.contains(value));
+    }
+
+    /**
+     * Resolves each argument to a code and checks it against the codes in
+     * use, collected in a single pass.
+     */
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        boolean[] present = new boolean[dictionary.count + 1];
+        for (int i = 0; i < size; i++) {
+            present[codes[offset + i] + 1] = true;
+        }
+        for (Object o : c) {
+            int code = dictionary.codeOf(o);
+            if (code == ABSENT || !present[code + 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super String> filter) {
+        beforeChange();
+        int previousSize = size;
+        int kept = 0;
+        int i = 0;
+        try {
+            for (; i < previousSize; i++) {
+                int code = codes[i];
+                if (!filter.test(valueOf(code))) {
+                    codes[kept++] = code;
+                }
+            }
+        }
+        finally {
+            if (i < previousSize) {
+                System.arraycopy(codes, i, codes, kept, previousSize - i);
+                kept += previousSize - i;
+            }
+            if (kept != previousSize) {
+                size = kept;
+                modCount++;
+            }
+        }
+        return kept != previousSize;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        int code = dictionary.codeOf(o);
+        if (code == ABSENT) {
+            return -1;
+        }
+        for (int i = 0; i < size; i++) {
+            if (codes[offset + i] == code) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        int code = dictionary.codeOf(o);
+        if (code == ABSENT) {
+            return -1;
+        }
+        for (int i = size - 1; i >= 0; i--) {
+            if (codes[offset + i] == code) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof DictionaryTextSeriesImpl) || ((DictionaryTextSeriesImpl) o).dictionary != dictionary) {
+            return super.equals(o);
+        }
+        DictionaryTextSeriesImpl other = (DictionaryTextSeriesImpl) o;
+        if (other.size != size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (codes[offset + i] != other.codes[other.offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 1;
+        for (int i = 0; i < size; i++) {
+            int code = codes[offset + i];
+            hashCode = 31 * hashCode + (code == NULL_CODE ? 0 : dictionary.hashCodeOf(code));
+        }
+        return hashCode;
+    }
+
+    private String valueOf(int code) {
+        return code == NULL_CODE ? null : dictionary.valueOf(code);
+    }
+
+    private void addCode(int code) {
+        beforeChange();
+        ensureCapacity(size + 1);
+        codes[size++] = code;
+        modCount++;
+    }
+
+    /**
+     * Evaluates the predicate once per distinct value present, then compacts
+     * the codes.
+     */
+    private boolean removeCodes(Predicate<Object> predicate) {
+        beforeChange();
+        boolean[] decided = new boolean[dictionary.count + 1];
+        boolean[] removed = new boolean[dictionary.count + 1];
+        for (int i = 0; i < size; i++) {
+            int slot = codes[i] + 1;
+            if (!decided[slot]) {
+                removed[slot] = predicate.test(valueOf(codes[i]));
+                decided[slot] = true;
+            }
+        }
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int code = codes[i];
+            if (!removed[code + 1]) {
+                codes[kept++] = code;
+            }
+        }
+        if (kept == size) {
+            return false;
+        }
+        size = kept;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Slices and views share their codes with the series they come from, so a
+     * shared series copies its own range before its first modification.
+     */
+    private void beforeChange() {
+        if (readOnly) {
+            throw new UnsupportedOperationException();
+        }
+        if (shared) {
+            codes = size == 0 ? EMPTY : Arrays.copyOfRange(codes, offset, offset + size);
+            offset = 0;
+            shared = false;
+        }
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        for (int i = 0; i < size; i++) {
+            out.writeInt(codes[offset + i]);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        codes = size == 0 ? EMPTY : new int[size];
+        for (int i = 0; i < size; i++) {
+            codes[i] = in.readInt();
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Grow-only mapping between distinct values and their codes.
+     */
+    private static final class Dictionary implements Serializable {
+
+        private static final long serialVersionUID = 6807340120245006587L;
+
+        private final boolean utf8Arena;
+        private int count;
+
+        private String[] values;
+        private Map<String, Integer> codes;
+
+        private byte[] arena;
+        private int arenaLength;
+        private int[] offsets;
+        private int[] hashes;
+        private int[] table;
+
+        private transient String[] escapedStrings;
+        private transient int[] stringHashes;
+        private transient byte[][] escapedBytes;
+
+        Dictionary(boolean utf8Arena) {
+            this.utf8Arena = utf8Arena;
+            if (utf8Arena) {
+                arena = new byte[64];
+                offsets = new int[9];
+                hashes = new int[8];
+                table = new int[16];
+            }
+            else {
+                values = new String[8];
+                codes = new HashMap<>();
+            }
+        }
+
+        /**
+         * NULL_CODE for null, ABSENT for anything that is not a known String.
+         */
+        int codeOf(Object value) {
+            if (value == null) {
+                return NULL_CODE;
+            }
+            if (!(value instanceof String)) {
+                return ABSENT;
+            }
+            if (!utf8Arena) {
+                Integer code = codes.get(value);
+                return code == null ? ABSENT : code;
+            }
+            byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+            int hash = hash(bytes);
+            int mask = table.length - 1;
+            for (int slot = hash & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+                int code = table[slot] - 1;
+                if (hashes[code] == hash && matches(code, bytes)) {
+                    return code;
+                }
+            }
+            return ABSENT;
+        }
+
+        int intern(String value) {
+            int code = codeOf(value);
+            if (code != ABSENT) {
+                return code;
+            }
+            code = count++;
+            if (!utf8Arena) {
+                if (code == values.length) {
+                    values = Arrays.copyOf(values, code * 2);
+                }
+                values[code] = value;
+                codes.put(value, code);
+                return code;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (arenaLength + bytes.length > arena.length) {
+                arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaLength + bytes.length));
+            }
+            System.arraycopy(bytes, 0, arena, arenaLength, bytes.length);
+            arenaLength += bytes.length;
+            if (code + 1 == offsets.length) {
+                offsets = Arrays.copyOf(offsets, code * 2 + 1);
+                hashes = Arrays.copyOf(hashes, code * 2);
+            }
+            offsets[code + 1] = arenaLength;
+            hashes[code] = hash(bytes);
+            if (count * 2 > table.length) {
+                rehash();
+            }
+            else {
+                insert(code);
+            }
+            return code;
+        }
+
+        String valueOf(int code) {
+            if (!utf8Arena) {
+                return values[code];
+            }
+            return new String(arena, offsets[code], offsets[code + 1] - offsets[code], StandardCharsets.UTF_8);
+        }
+
+        /**
+         * The String hash code of the entry, so that an arena entry is
+         * decoded once rather than on every hashCode call.
+         */
+        int hashCodeOf(int code) {
+            if (!utf8Arena) {
+                return values[code].hashCode();
+            }
+            if (stringHashes == null || stringHashes.length < count) {
+                stringHashes = stringHashes == null ? new int[count] : Arrays.copyOf(stringHashes, count);
+            }
+            int hash = stringHashes[code];
+            if (hash == 0) {
+                stringHashes[code] = hash = valueOf(code).hashCode();
+            }
+            return hash;
+        }
+
+        /**
+         * The quoted and escaped JSON form of the entry.
+         */
+        String escaped(int code) {
+            if (escapedStrings == null || escapedStrings.length < count) {
+                escapedStrings = escapedStrings == null ? new String[count] : Arrays.copyOf(escapedStrings, count);
+            }
+            String escaped = escapedStrings[code];
+            if (escaped == null) {
+                StringBuilder sb = new StringBuilder();
+                try {
+                    JsonStreams.writeString(sb, valueOf(code));
+                }
+                catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                escapedStrings[code] = escaped = sb.toString();
+            }
+            return escaped;
+        }
+
+        /**
+         * Arena entries that need no escaping are copied straight from the
+         * arena; every other entry is escaped and encoded once.
+         */
+        void writeEscaped(int code, OutputStream out) throws IOException {
+            if (utf8Arena && !needsEscaping(code)) {
+                out.write('"');
+                out.write(arena, offsets[code], offsets[code + 1] - offsets[code]);
+                out.write('"');
+                return;
+            }
+            if (escapedBytes == null || escapedBytes.length < count) {
+                escapedBytes = escapedBytes == null ? new byte[count][] : Arrays.copyOf(escapedBytes, count);
+            }
+            byte[] bytes = escapedBytes[code];
+            if (bytes == null) {
+                escapedBytes[code] = bytes = escaped(code).getBytes(StandardCharsets.UTF_8);
+            }
+            out.write(bytes);
+        }
+
+        private boolean needsEscaping(int code) {
+            for (int i = offsets[code], end = offsets[code + 1]; i < end; i++) {
+                int b = arena[i] & 0xFF;
+                if (b < 0x20 || b == '"' || b == '\\') {
+                    return true;
+                }
+                if (b == 0xE2 && i + 2 < end && arena[i + 1] == (byte) 0x80 && (arena[i + 2] == (byte) 0xA8 || arena[i + 2] == (byte) 0xA9)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean matches(int code, byte[] bytes) {
+            int offset = offsets[code];
+            if (offsets[code + 1] - offset != bytes.length) {
+                return false;
+            }
+            for (int i = 0; i < bytes.length; i++) {
+                if (arena[offset + i] != bytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void insert(int code) {
+            int mask = table.length - 1;
+            int slot = hashes[code] & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = code + 1;
+        }
+
+        private void rehash() {
+            table = new int[table.length * 2];
+            for (int code = 0; code < count; code++) {
+                insert(code);
+            }
+        }
+
+        private static int hash(byte[] bytes) {
+            int hash = 1;
+            for (byte b : bytes) {
+                hash = 31 * hash + b;
+            }
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
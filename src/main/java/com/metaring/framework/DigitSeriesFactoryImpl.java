@@ -16,11 +16,15 @@
 
 package com.metaring.framework;
 
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.io.IOException;
 import java.util.function.Function;
+import java.util.stream.Collector;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+
 import com.metaring.framework.type.factory.DigitSeriesFactory;
 import com.metaring.framework.type.series.DigitSeries;
 
@@ -39,12 +43,61 @@ final class DigitSeriesFactoryImpl implements DigitSeriesFactory {
 
     @Override
     public DigitSeries create(Long... digits) {
-        return create(digits == null ? new ArrayList<>() : Arrays.asList(digits));
+        if (digits == null) {
+            return new DigitSeriesImpl();
+        }
+        long[] elements = new long[digits.length];
+        for (int i = 0; i < digits.length; i++) {
+            elements[i] = DigitSeriesImpl.unbox(digits[i]);
+        }
+        return new DigitSeriesImpl(elements, elements.length);
+    }
+
+    public DigitSeries createFromLongs(long... digits) {
+        return digits == null ? new DigitSeriesImpl() : new DigitSeriesImpl(digits.clone(), digits.length);
+    }
+
+    public DigitSeries create(LongStream digits) {
+        return digits.collect(DigitSeriesImpl::new, DigitSeriesImpl::addLong, DigitSeriesImpl::addAll);
     }
 
+    public Collector<Long, ?, DigitSeries> collector() {
+        return Collector.<Long, DigitSeries> of(DigitSeriesImpl::new, DigitSeries::add, (left, right) -> {
+            left.addAll(right);
+            return left;
+        });
+    }
+
+    /**
+     * JSON arrays are decoded in a single pass straight into the series;
+     * any other content goes through the configured strings function.
+     */
     @Override
     public DigitSeries fromJson(String json) {
-        Stream<String> strings = fromJsonToStringsFunction.apply(json);
-        return strings == null ? null : create(strings.map(Long::new).toArray(Long[]::new));
+        if (JsonArrays.isNull(json)) {
+            return null;
+        }
+        try(JsonReader jsonReader = JsonArrays.beginArray(json)) {
+            if (jsonReader == null) {
+                return fromStrings(fromJsonToStringsFunction.apply(json));
+            }
+            DigitSeriesImpl digitSeries = new DigitSeriesImpl(new long[16], 0);
+            while (jsonReader.hasNext()) {
+                digitSeries.addLong(JsonArrays.nextLong(jsonReader));
+            }
+            JsonArrays.endArray(jsonReader);
+            return digitSeries;
+        }
+        catch (IOException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    private DigitSeries fromStrings(Stream<String> strings) {
+        if (strings == null) {
+            return null;
+        }
+        long[] elements = strings.mapToLong(Long::parseLong).toArray();
+        return new DigitSeriesImpl(elements, elements.length);
     }
 }
@@ -16,41 +16,149 @@
 
 package com.metaring.framework;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.LongSummaryStatistics;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
 import java.util.function.Predicate;
 import java.util.function.UnaryOperator;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.stream.LongStream;
 
 import org.apache.calcite.linq4j.Enumerable;
 import org.apache.calcite.linq4j.Linq4j;
 
 import com.metaring.framework.type.series.DigitSeries;
 
-final class DigitSeriesImpl extends ArrayList<Long> implements DigitSeries {
+/**
+ * Keeps its items in a growable long[] rather than as boxed Longs, so it takes
+ * 8 bytes per item instead of a reference plus a 16 bytes Long. Boxing only
+ * happens at the List&lt;Long&gt; boundary; the *Long methods never box. Being
+ * primitive-backed, it does not accept null items. Slices and views share the
+ * array copy-on-write, see ArraySeries.
+ */
+final class DigitSeriesImpl extends ArraySeries<Long, long[]> implements DigitSeries {
+
+    // Changed on purpose along with the serial form, which went from the
+    // ArrayList fields to size plus the raw items: streams of the old form are
+    // rejected with an InvalidClassException instead of being misread.
+    private static final long serialVersionUID = 2713066370548260318L;
+    private static final long[] EMPTY = {};
 
-    private static final long serialVersionUID = -4292428119221876468L;
-    private Enumerable<Long> internalEnumerable;
+    private transient Enumerable<Long> internalEnumerable;
+
+    DigitSeriesImpl() {
+        this(EMPTY, 0);
+    }
 
     DigitSeriesImpl(Iterable<Long> iterable) {
-        super();
-        this.addAll(StreamSupport.stream(iterable.spliterator(), false).collect(Collectors.toList()));
+        this(EMPTY, 0);
+        if (iterable instanceof Collection) {
+            addAll((Collection<Long>) iterable);
+        }
+        else {
+            for (Long value : iterable) {
+                add(value);
+            }
+        }
+    }
+
+    /**
+     * Takes ownership of the given array, whose first size items become the
+     * content of the series.
+     */
+    DigitSeriesImpl(long[] elements, int size) {
+        super(elements, 0, size, false, false);
+    }
+
+    private DigitSeriesImpl(long[] elements, int offset, int size, boolean readOnly) {
+        super(elements, offset, size, true, readOnly);
+    }
+
+    @Override
+    long[] newArray(int length) {
+        return length == 0 ? EMPTY : new long[length];
+    }
+
+    @Override
+    int length(long[] array) {
+        return array.length;
     }
 
     @Override
     public String toJson() {
-        StringBuilder sb = new StringBuilder("[");
-        forEach(it -> sb.append(it.toString()).append(","));
-        return sb.delete(sb.length() - 1, sb.length()).append("]").toString();
+        StringBuilder sb = new StringBuilder(2 + size * 8);
+        try {
+            writeTo(sb);
+        }
+        catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return sb.toString();
+    }
+
+    public void writeTo(Appendable appendable) throws IOException {
+        appendable.append('[');
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                appendable.append(',');
+            }
+            JsonStreams.writeLong(appendable, elements[offset + i]);
+        }
+        appendable.append(']');
+    }
+
+    public void writeTo(OutputStream outputStream) throws IOException {
+        Writer writer = JsonStreams.newWriter(outputStream);
+        writeTo(writer);
+        writer.flush();
+    }
+
+    public void writeTo(ByteBuffer byteBuffer) throws IOException {
+        writeTo(JsonStreams.asOutputStream(byteBuffer));
     }
 
     @Override
     public Long[] toArray() {
-        return this.toArray(new Long[this.size()]);
+        Long[] array = new Long[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = elements[offset + i];
+        }
+        return array;
     }
 
+    public long[] toLongArray() {
+        return Arrays.copyOfRange(elements, offset, offset + size);
+    }
+
+    public LongStream longStream() {
+        return Arrays.stream(elements, offset, offset + size);
+    }
+
+    /**
+     * Splits the backing array directly, so stream() and parallelStream()
+     * are sized and divide evenly instead of walking the iterator.
+     */
+    @Override
+    public Spliterator<Long> spliterator() {
+        return Spliterators.spliterator(elements, offset, offset + size, Spliterator.ORDERED);
+    }
+
+    /**
+     * Linq4j enumerates the list itself, so the same instance stays valid
+     * across mutations.
+     */
     @Override
     public Enumerable<Long> asEnumerable() {
         return internalEnumerable != null ? internalEnumerable : (internalEnumerable = Linq4j.asEnumerable(this));
@@ -96,77 +204,462 @@ final class DigitSeriesImpl extends ArrayList<Long> implements DigitSeries {
         return longs == null ? false : this.retainAll(Arrays.asList(longs));
     }
 
-    private void recreateEnumerable() {
-        if (internalEnumerable != null) {
-            internalEnumerable = Linq4j.asEnumerable(this);
+    public boolean addLongs(long... longs) {
+        beforeChange();
+        if (longs == null || longs.length == 0) {
+            return false;
+        }
+        ensureCapacity(size + longs.length);
+        System.arraycopy(longs, 0, elements, size, longs.length);
+        size += longs.length;
+        modCount++;
+        return true;
+    }
+
+    public long getLong(int index) {
+        checkIndex(index);
+        return elements[offset + index];
+    }
+
+    public long setLong(int index, long value) {
+        beforeChange();
+        checkIndex(index);
+        long previous = elements[index];
+        elements[index] = value;
+        return previous;
+    }
+
+    public void addLong(long value) {
+        beforeChange();
+        ensureCapacity(size + 1);
+        elements[size++] = value;
+        modCount++;
+    }
+
+    public void forEachLong(LongConsumer action) {
+        int expectedModCount = modCount;
+        for (int i = 0; i < size && modCount == expectedModCount; i++) {
+            action.accept(elements[offset + i]);
+        }
+        checkForComodification(expectedModCount);
+    }
+
+    public boolean removeIfLong(LongPredicate filter) {
+        beforeChange();
+        int oldSize = size;
+        int kept = 0;
+        int i = 0;
+        try {
+            for (; i < oldSize; i++) {
+                long value = elements[i];
+                if (!filter.test(value)) {
+                    elements[kept++] = value;
+                }
+            }
+        }
+        finally {
+            if (i < oldSize) {
+                System.arraycopy(elements, i, elements, kept, oldSize - i);
+                kept += oldSize - i;
+            }
+            if (kept != oldSize) {
+                size = kept;
+                modCount++;
+            }
+        }
+        return kept != oldSize;
+    }
+
+    public void replaceAllLongs(LongUnaryOperator operator) {
+        beforeChange();
+        for (int i = 0; i < size; i++) {
+            elements[i] = operator.applyAsLong(elements[i]);
+        }
+        modCount++;
+    }
+
+    public int indexOfLong(long value) {
+        for (int i = 0; i < size; i++) {
+            if (elements[offset + i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int lastIndexOfLong(long value) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (elements[offset + i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean containsLong(long value) {
+        return indexOfLong(value) >= 0;
+    }
+
+    /**
+     * Wraps around on overflow, like LongStream.sum(). This and the other
+     * aggregations split across the common fork-join pool on large series,
+     * see SeriesAggregations.
+     */
+    public long sum() {
+        long[] elements = this.elements;
+        return SeriesAggregations.reduce(offset, offset + size, (from, to) -> {
+            long sum = 0L;
+            for (int i = from; i < to; i++) {
+                sum += elements[i];
+            }
+            return sum;
+        }, Long::sum);
+    }
+
+    /**
+     * Throws NoSuchElementException when the series is empty.
+     */
+    public long min() {
+        checkNotEmpty();
+        long[] elements = this.elements;
+        return SeriesAggregations.reduce(offset, offset + size, (from, to) -> {
+            long min = elements[from];
+            for (int i = from + 1; i < to; i++) {
+                min = Math.min(min, elements[i]);
+            }
+            return min;
+        }, Math::min);
+    }
+
+    /**
+     * Throws NoSuchElementException when the series is empty.
+     */
+    public long max() {
+        checkNotEmpty();
+        long[] elements = this.elements;
+        return SeriesAggregations.reduce(offset, offset + size, (from, to) -> {
+            long max = elements[from];
+            for (int i = from + 1; i < to; i++) {
+                max = Math.max(max, elements[i]);
+            }
+            return max;
+        }, Math::max);
+    }
+
+    /**
+     * The predicate may be called from several threads at once.
+     */
+    public int count(LongPredicate predicate) {
+        long[] elements = this.elements;
+        return SeriesAggregations.reduce(offset, offset + size, (from, to) -> {
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                if (predicate.test(elements[i])) {
+                    count++;
+                }
+            }
+            return count;
+        }, Integer::sum);
+    }
+
+    /**
+     * Counts the items between min and max (both inclusive) into bins of equal
+     * integer width, the last one possibly narrower; items outside the range
+     * are not counted. A single bin over the whole long range is 2^64 wide,
+     * which overflows the width to 0, so with one bin the index is always 0.
+     */
+    public long[] histogram(long min, long max, int bins) {
+        SeriesAggregations.checkBins(bins);
+        if (min > max) {
+            throw new IllegalArgumentException("Min: " + min + ", Max: " + max);
+        }
+        long width = Long.divideUnsigned(max - min, bins) + 1;
+        long[] elements = this.elements;
+        return SeriesAggregations.reduce(offset, offset + size, (from, to) -> {
+            long[] counts = new long[bins];
+            for (int i = from; i < to; i++) {
+                long value = elements[i];
+                if (value >= min && value <= max) {
+                    counts[bins == 1 ? 0 : (int) Long.divideUnsigned(value - min, width)]++;
+                }
+            }
+            return counts;
+        }, SeriesAggregations::addCounts);
+    }
+
+    public LongSummaryStatistics statistics() {
+        long[] elements = this.elements;
+        return SeriesAggregations.reduce(offset, offset + size, (from, to) -> {
+            LongSummaryStatistics statistics = new LongSummaryStatistics();
+            for (int i = from; i < to; i++) {
+                statistics.accept(elements[i]);
+            }
+            return statistics;
+        }, (left, right) -> {
+            left.combine(right);
+            return left;
+        });
+    }
+
+    /**
+     * Items from (inclusive) to to (exclusive) as a series sharing this one's
+     * array: nothing is copied unless one of the two is modified later.
+     */
+    public DigitSeriesImpl slice(int from, int to) {
+        checkSlice(from, to);
+        return new DigitSeriesImpl(share(), offset + from, to - from, readOnly);
+    }
+
+    /**
+     * A snapshot of the current items that rejects any modification, sharing
+     * this series' array until this series is modified.
+     */
+    public DigitSeriesImpl readOnlyView() {
+        return new DigitSeriesImpl(share(), offset, size, true);
+    }
+
+    /**
+     * A new series with the items of this one followed by those of the
+     * others, filled with a single presized copy.
+     */
+    public DigitSeriesImpl concat(DigitSeries... others) {
+        int total = size;
+        for (DigitSeries other : others) {
+            total += other.size();
         }
+        long[] result = Arrays.copyOfRange(elements, offset, offset + total);
+        int position = size;
+        for (DigitSeries other : others) {
+            if (other instanceof DigitSeriesImpl) {
+                DigitSeriesImpl series = (DigitSeriesImpl) other;
+                System.arraycopy(series.elements, series.offset, result, position, series.size);
+                position += series.size;
+            }
+            else {
+                for (Long value : other) {
+                    result[position++] = value;
+                }
+            }
+        }
+        return new DigitSeriesImpl(result, position);
+    }
+
+    @Override
+    public Long get(int index) {
+        return getLong(index);
+    }
+
+    @Override
+    public Long set(int index, Long element) {
+        return setLong(index, unbox(element));
     }
 
     @Override
     public boolean add(Long e) {
-        boolean test = super.add(e);
-        recreateEnumerable();
-        return test;
+        addLong(unbox(e));
+        return true;
     }
 
     @Override
     public void add(int index, Long element) {
-        super.add(index, element);
-        recreateEnumerable();
+        beforeChange();
+        long value = unbox(element);
+        insertRoom(index, 1);
+        elements[index] = value;
     }
 
     @Override
     public boolean addAll(Collection<? extends Long> c) {
-        boolean test = super.addAll(c);
-        recreateEnumerable();
-        return test;
+        return addAll(size, c);
     }
 
     @Override
     public boolean addAll(int index, Collection<? extends Long> c) {
-        boolean test = super.addAll(index, c);
-        recreateEnumerable();
-        return test;
+        beforeChange();
+        checkPositionIndex(index);
+        int count = c.size();
+        if (count == 0) {
+            return false;
+        }
+        ensureCapacity(size + count);
+        if (c instanceof DigitSeriesImpl) {
+            DigitSeriesImpl other = (DigitSeriesImpl) c;
+            long[] source = other == this ? Arrays.copyOf(elements, count) : other.elements;
+            int sourceOffset = other == this ? 0 : other.offset;
+            System.arraycopy(elements, index, elements, index + count, size - index);
+            System.arraycopy(source, sourceOffset, elements, index, count);
+        }
+        else if (index == size) {
+            int i = size;
+            for (Long value : c) {
+                elements[i++] = unbox(value);
+            }
+            count = i - size;
+        }
+        else {
+            long[] values = new long[count];
+            int i = 0;
+            for (Long value : c) {
+                values[i++] = unbox(value);
+            }
+            System.arraycopy(elements, index, elements, index + count, size - index);
+            System.arraycopy(values, 0, elements, index, count);
+        }
+        size += count;
+        modCount++;
+        return true;
     }
 
     @Override
-    public boolean remove(Object o) {
-        boolean test = super.remove(o);
-        recreateEnumerable();
-        return test;
+    public Long remove(int index) {
+        beforeChange();
+        long previous = getLong(index);
+        removeAt(index);
+        return previous;
     }
 
     @Override
-    public Long remove(int index) {
-        Long test = super.remove(index);
-        recreateEnumerable();
-        return test;
+    public boolean remove(Object o) {
+        int index = indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
     }
 
     @Override
     public boolean removeAll(Collection<?> c) {
-        boolean test = super.removeAll(c);
-        recreateEnumerable();
-        return test;
+        if (SeriesSets.canSortKeys(c)) {
+            long[] keys = SeriesSets.sortedLongs(c);
+            return removeIfLong(value -> SeriesSets.contains(keys, value));
+        }
+        return removeIfLong(value -> c.contains(value));
     }
 
     @Override
-    public boolean removeIf(Predicate<? super Long> filter) {
-        boolean test = super.removeIf(filter);
-        recreateEnumerable();
-        return test;
+    public boolean retainAll(Collection<?> c) {
+        if (SeriesSets.canSortKeys(c)) {
+            long[] keys = SeriesSets.sortedLongs(c);
+            return removeIfLong(value -> !SeriesSets.contains(keys, value));
+        }
+        return removeIfLong(value -> !c.contains(value));
     }
 
+    /**
+     * Large arguments are checked by binary search over a sorted copy of the
+     * items instead of a scan per argument.
+     */
     @Override
-    public boolean retainAll(Collection<?> c) {
-        boolean test = super.retainAll(c);
-        recreateEnumerable();
-        return test;
+    public boolean containsAll(Collection<?> c) {
+        if (!SeriesSets.isLarge(c) || size <= SeriesSets.THRESHOLD) {
+            return super.containsAll(c);
+        }
+        long[] keys = toLongArray();
+        Arrays.sort(keys);
+        for (Object o : c) {
+            if (!(o instanceof Long) || !SeriesSets.contains(keys, (Long) o)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Long> filter) {
+        return removeIfLong(filter::test);
     }
 
     @Override
     public void replaceAll(UnaryOperator<Long> operator) {
-        super.replaceAll(operator);
-        recreateEnumerable();
+        replaceAllLongs(value -> operator.apply(value));
+    }
+
+    @Override
+    public void sort(Comparator<? super Long> c) {
+        beforeChange();
+        if (c == null || c == Comparator.naturalOrder()) {
+            Arrays.sort(elements, 0, size);
+            modCount++;
+        }
+        else {
+            super.sort(c);
+        }
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return o instanceof Long ? indexOfLong((Long) o) : -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return o instanceof Long ? lastIndexOfLong((Long) o) : -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof DigitSeriesImpl)) {
+            return super.equals(o);
+        }
+        DigitSeriesImpl other = (DigitSeriesImpl) o;
+        if (other.size != size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (elements[offset + i] != other.elements[other.offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 1;
+        for (int i = 0; i < size; i++) {
+            hashCode = 31 * hashCode + Long.hashCode(elements[offset + i]);
+        }
+        return hashCode;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        for (int i = 0; i < size; i++) {
+            out.writeLong(elements[offset + i]);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        elements = size == 0 ? EMPTY : new long[size];
+        for (int i = 0; i < size; i++) {
+            elements[i] = in.readLong();
+        }
+    }
+
+    /**
+     * Being primitive-backed, the series cannot hold null: it is rejected with
+     * a NullPointerException naming the series type rather than by unboxing.
+     */
+    static long unbox(Long item) {
+        if (item == null) {
+            throw new NullPointerException("A DigitSeries cannot hold null items");
+        }
+        return item;
+    }
+
+    private void checkNotEmpty() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
     }
 }
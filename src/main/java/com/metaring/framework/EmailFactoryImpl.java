@@ -54,9 +54,12 @@ final class EmailFactoryImpl implements EmailFactory {
         }
         int atIndex = email.indexOf("@");
         int dotIndex = email.indexOf(".");
-        while(dotIndex <= atIndex) {
+        while(dotIndex != -1 && dotIndex <= atIndex) {
             dotIndex = email.indexOf(".", dotIndex + 1);
         }
+        if(dotIndex == -1) {
+            return null;
+        }
         String username = email.substring(0, atIndex);
         String domainName = email.substring(atIndex + 1, dotIndex);
         String domainLocation = email.substring(dotIndex + 1);
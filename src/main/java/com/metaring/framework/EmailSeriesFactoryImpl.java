@@ -16,11 +16,15 @@
 
 package com.metaring.framework;
 
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.function.Function;
+import java.util.stream.Collector;
 import java.util.stream.Stream;
 
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+
 import com.metaring.framework.type.Email;
 import com.metaring.framework.type.factory.EmailFactory;
 import com.metaring.framework.type.factory.EmailSeriesFactory;
@@ -43,12 +47,39 @@ final class EmailSeriesFactoryImpl implements EmailSeriesFactory {
 
     @Override
     public EmailSeries create(Email... array) {
-        return create(array == null ? new ArrayList<>() : Arrays.asList(array));
+        return array == null ? new EmailSeriesImpl() : create(Arrays.asList(array));
+    }
+
+    public Collector<Email, ?, EmailSeries> collector() {
+        return Collector.<Email, EmailSeries> of(EmailSeriesImpl::new, EmailSeries::add, (left, right) -> {
+            left.addAll(right);
+            return left;
+        });
     }
 
+    /**
+     * JSON arrays are decoded in a single pass straight into the series;
+     * any other content goes through the configured strings function.
+     */
     @Override
     public EmailSeries fromJson(String json) {
-        Stream<String> strings = fromJsonToStringsFunction.apply(json);
-        return strings == null ? null : create(strings.map(itemFactory::fromJson).toArray(Email[]::new));
+        if (JsonArrays.isNull(json)) {
+            return null;
+        }
+        try(JsonReader jsonReader = JsonArrays.beginArray(json)) {
+            if (jsonReader == null) {
+                Stream<String> strings = fromJsonToStringsFunction.apply(json);
+                return strings == null ? null : create(strings.map(itemFactory::fromJson).toArray(Email[]::new));
+            }
+            EmailSeriesImpl emailSeries = new EmailSeriesImpl();
+            while (jsonReader.hasNext()) {
+                emailSeries.add(itemFactory.fromJson(JsonArrays.nextCleanString(jsonReader)));
+            }
+            JsonArrays.endArray(jsonReader);
+            return emailSeries;
+        }
+        catch (IOException e) {
+            throw new JsonSyntaxException(e);
+        }
     }
 }
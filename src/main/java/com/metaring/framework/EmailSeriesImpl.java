@@ -16,13 +16,11 @@
 
 package com.metaring.framework;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
-import java.util.Collection;
-import java.util.function.Predicate;
-import java.util.function.UnaryOperator;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 import org.apache.calcite.linq4j.Enumerable;
 import org.apache.calcite.linq4j.Linq4j;
@@ -30,28 +28,80 @@ import org.apache.calcite.linq4j.Linq4j;
 import com.metaring.framework.type.Email;
 import com.metaring.framework.type.series.EmailSeries;
 
-final class EmailSeriesImpl extends ArrayList<Email> implements EmailSeries {
+final class EmailSeriesImpl extends ObjectSeries<Email> implements EmailSeries {
 
-    private static final long serialVersionUID = -1729792280050033823L;
-    private Enumerable<Email> internalEnumerable;
+    // Changed on purpose along with the serial form, which went from the
+    // ArrayList fields to size plus the raw items: streams of the old form are
+    // rejected with an InvalidClassException instead of being misread.
+    private static final long serialVersionUID = 8841047937395460213L;
+    private transient Enumerable<Email> internalEnumerable;
 
-    EmailSeriesImpl(Iterable<Email> iterable) {
+    EmailSeriesImpl() {
         super();
-        this.addAll(StreamSupport.stream(iterable.spliterator(), false).collect(Collectors.toList()));
+    }
+
+    /**
+     * Collections are copied once, through toArray.
+     */
+    EmailSeriesImpl(Iterable<Email> iterable) {
+        super(iterable);
+    }
+
+    private EmailSeriesImpl(Object[] elements, int offset, int size, boolean shared, boolean readOnly) {
+        super(elements, offset, size, shared, readOnly);
     }
 
     @Override
     public String toJson() {
-        StringBuilder sb = new StringBuilder("[");
-        forEach(it -> sb.append(it.toJson()).append(","));
-        return sb.delete(sb.length() - 1, sb.length()).append("]").toString();
+        StringBuilder sb = new StringBuilder(2 + size * 8);
+        try {
+            writeTo(sb);
+        }
+        catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return sb.toString();
+    }
+
+    public void writeTo(Appendable appendable) throws IOException {
+        appendable.append('[');
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                appendable.append(',');
+            }
+            Email value = elementAt(i);
+            if (value == null) {
+                JsonStreams.writeNull(appendable);
+            }
+            else if (value instanceof EmailImpl) {
+                JsonStreams.writeString(appendable, value.toString());
+            }
+            else {
+                appendable.append(value.toJson());
+            }
+        }
+        appendable.append(']');
+    }
+
+    public void writeTo(OutputStream outputStream) throws IOException {
+        Writer writer = JsonStreams.newWriter(outputStream);
+        writeTo(writer);
+        writer.flush();
+    }
+
+    public void writeTo(ByteBuffer byteBuffer) throws IOException {
+        writeTo(JsonStreams.asOutputStream(byteBuffer));
     }
 
     @Override
     public Email[] toArray() {
-        return this.toArray(new Email[this.size()]);
+        return Arrays.copyOfRange(elements, offset, offset + size, Email[].class);
     }
 
+    /**
+     * Linq4j enumerates the list itself, so the same instance stays valid
+     * across mutations.
+     */
     @Override
     public Enumerable<Email> asEnumerable() {
         return internalEnumerable != null ? internalEnumerable : (internalEnumerable = Linq4j.asEnumerable(this));
@@ -97,77 +147,46 @@ final class EmailSeriesImpl extends ArrayList<Email> implements EmailSeries {
         return array == null ? false : this.retainAll(Arrays.asList(array));
     }
 
-    private void recreateEnumerable() {
-        if (internalEnumerable != null) {
-            internalEnumerable = Linq4j.asEnumerable(this);
-        }
-    }
-
-    @Override
-    public boolean add(Email e) {
-        boolean test = super.add(e);
-        recreateEnumerable();
-        return test;
-    }
-
-    @Override
-    public void add(int index, Email element) {
-        super.add(index, element);
-        recreateEnumerable();
-    }
-
-    @Override
-    public boolean addAll(Collection<? extends Email> c) {
-        boolean test = super.addAll(c);
-        recreateEnumerable();
-        return test;
-    }
-
-    @Override
-    public boolean addAll(int index, Collection<? extends Email> c) {
-        boolean test = super.addAll(index, c);
-        recreateEnumerable();
-        return test;
+    /**
+     * Items from (inclusive) to to (exclusive) as a series sharing this one's
+     * array: nothing is copied unless one of the two is modified later.
+     */
+    public EmailSeriesImpl slice(int from, int to) {
+        checkSlice(from, to);
+        return new EmailSeriesImpl(share(), offset + from, to - from, true, readOnly);
     }
 
-    @Override
-    public boolean remove(Object o) {
-        boolean test = super.remove(o);
-        recreateEnumerable();
-        return test;
+    /**
+     * A snapshot of the current items that rejects any modification, sharing
+     * this series' array until this series is modified.
+     */
+    public EmailSeriesImpl readOnlyView() {
+        return new EmailSeriesImpl(share(), offset, size, true, true);
     }
 
-    @Override
-    public Email remove(int index) {
-        Email test = super.remove(index);
-        recreateEnumerable();
-        return test;
-    }
-
-    @Override
-    public boolean removeAll(Collection<?> c) {
-        boolean test = super.removeAll(c);
-        recreateEnumerable();
-        return test;
-    }
-
-    @Override
-    public boolean removeIf(Predicate<? super Email> filter) {
-        boolean test = super.removeIf(filter);
-        recreateEnumerable();
-        return test;
-    }
-
-    @Override
-    public boolean retainAll(Collection<?> c) {
-        boolean test = super.retainAll(c);
-        recreateEnumerable();
-        return test;
-    }
-
-    @Override
-    public void replaceAll(UnaryOperator<Email> operator) {
-        super.replaceAll(operator);
-        recreateEnumerable();
+    /**
+     * A new series with the items of this one followed by those of the
+     * others, filled with a single presized copy.
+     */
+    public EmailSeriesImpl concat(EmailSeries... others) {
+        int total = size;
+        for (EmailSeries other : others) {
+            total += other.size();
+        }
+        Object[] result = Arrays.copyOfRange(elements, offset, offset + total, Object[].class);
+        int position = size;
+        for (EmailSeries other : others) {
+            if (other instanceof EmailSeriesImpl) {
+                EmailSeriesImpl series = (EmailSeriesImpl) other;
+                System.arraycopy(series.elements, series.offset, result, position, series.size);
+                position += series.size;
+            }
+            else {
+                for (Email value : other) {
+                    result[position++] = value;
+                }
+            }
+        }
+        return new EmailSeriesImpl(result, 0, position, false, false);
     }
 }
@@ -16,6 +16,8 @@
 
 package com.metaring.framework;
 
+import com.google.gson.JsonElement;
+
 import com.metaring.framework.type.DataRepresentation;
 import com.metaring.framework.type.Email;
 import com.metaring.framework.type.factory.DigitSeriesFactory;
@@ -41,6 +43,10 @@ class ImmutableDataRepresentation extends DataRepresentationImpl {
                 emailSeriesFactory, logMessageTypeProvider);
     }
 
+    private ImmutableDataRepresentation(ImmutableDataRepresentation parent, JsonElement instance) {
+        super(parent, instance, true);
+    }
+
     @Override
     public DataRepresentation merge(DataRepresentation extension) {
         throw new IllegalAccessError("This item is read-only");
@@ -366,25 +372,12 @@ class ImmutableDataRepresentation extends DataRepresentationImpl {
         throw new IllegalAccessError("This item is read-only!");
     }
 
+    /**
+     * Children are read-only too: they wrap the parent's node as-is, which
+     * nothing can mutate, instead of re-parsing its JSON.
+     */
     @Override
-    public final DataRepresentation get(int position) {
-        try {
-            return new ImmutableDataRepresentation(super.get(position).toJson(), textSeriesFactory, digitSeriesFactory, realDigitSeriesFactory, truthSeriesFactory, emailFactory,
-                    emailSeriesFactory, logMessageTypeProvider);
-        }
-        catch(Exception e) {
-            return null;
-        }
-    }
-
-    @Override
-    public final DataRepresentation get(String property) {
-        try {
-            return new ImmutableDataRepresentation(super.get(property).toJson(), textSeriesFactory, digitSeriesFactory, realDigitSeriesFactory, truthSeriesFactory, emailFactory,
-                    emailSeriesFactory, logMessageTypeProvider);
-        }
-        catch(Exception e) {
-            return null;
-        }
+    final DataRepresentation createView(JsonElement element) {
+        return element == null ? null : new ImmutableDataRepresentation(this, element);
     }
 }
\ No newline at end of file
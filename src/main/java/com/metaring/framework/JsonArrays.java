@@ -0,0 +1,131 @@
+/**
+ *    Copyright 2019 MetaRing s.r.l.
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.metaring.framework;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Sequential decoding of JSON arrays item by item, used by the series
+ * factories to fill their primitive storage without building a tree.
+ */
+final class JsonArrays {
+
+    private static final JsonParser JSON_PARSER = new JsonParser();
+
+    private JsonArrays() {
+    }
+
+    /**
+     * Null, blank and null literal (spaces allowed) contents decode to no
+     * series at all.
+     */
+    static final boolean isNull(String json) {
+        if (json == null) {
+            return true;
+        }
+        int start = 0;
+        int end = json.length();
+        while (start < end && json.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && json.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return true;
+        }
+        String literal = "null";
+        int matched = 0;
+        for (int i = start; i < end; i++) {
+            char c = json.charAt(i);
+            if (c == ' ') {
+                continue;
+            }
+            if (matched == literal.length() || Character.toLowerCase(c) != literal.charAt(matched++)) {
+                return false;
+            }
+        }
+        return matched == literal.length();
+    }
+
+    /**
+     * Returns a lenient reader positioned on the first item, or null if the
+     * content is not a JSON array.
+     */
+    static final JsonReader beginArray(String json) throws IOException {
+        JsonReader jsonReader = new JsonReader(new StringReader(json));
+        jsonReader.setLenient(true);
+        if (jsonReader.peek() != JsonToken.BEGIN_ARRAY) {
+            return null;
+        }
+        jsonReader.beginArray();
+        return jsonReader;
+    }
+
+    /**
+     * Closes the array and, as Gson.fromJson does, rejects trailing content.
+     */
+    static final void endArray(JsonReader jsonReader) throws IOException {
+        jsonReader.endArray();
+        if (jsonReader.peek() != JsonToken.END_DOCUMENT) {
+            throw new JsonSyntaxException("JSON document was not fully consumed.");
+        }
+    }
+
+    /**
+     * Long.parseLong of the clean string, as the strings function and
+     * JsonElementKind.isLong read an item: 1.0, true or null are rejected
+     * with a NumberFormatException rather than converted by Gson.
+     */
+    static final long nextLong(JsonReader jsonReader) throws IOException {
+        return Long.parseLong(nextCleanString(jsonReader));
+    }
+
+    /**
+     * Numbers and strings are read by Gson with Double.parseDouble; anything
+     * else gets the NumberFormatException its clean string would.
+     */
+    static final double nextDouble(JsonReader jsonReader) throws IOException {
+        JsonToken token = jsonReader.peek();
+        return token == JsonToken.NUMBER || token == JsonToken.STRING ? jsonReader.nextDouble() : Double.parseDouble(nextCleanString(jsonReader));
+    }
+
+    /**
+     * Same text DataRepresentation gives for an item: the value of a
+     * primitive, the JSON of anything else.
+     */
+    static final String nextCleanString(JsonReader jsonReader) throws IOException {
+        switch (jsonReader.peek()) {
+            case STRING:
+            case NUMBER:
+                return jsonReader.nextString();
+            case BOOLEAN:
+                return jsonReader.nextBoolean() ? "true" : "false";
+            case NULL:
+                jsonReader.nextNull();
+                return "null";
+            default:
+                return JSON_PARSER.parse(jsonReader).toString();
+        }
+    }
+}
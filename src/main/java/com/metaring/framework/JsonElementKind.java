@@ -0,0 +1,179 @@
+/**
+ *    Copyright 2019 MetaRing s.r.l.
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.metaring.framework;
+
+import java.util.regex.Pattern;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * Classifies a JsonElement into the conversions DataRepresentationImpl can
+ * perform on it, without attempting them. Each flag mirrors the Gson or factory
+ * call the corresponding accessor makes, so probing never has to throw.
+ */
+final class JsonElementKind {
+
+    static final int UNKNOWN = -1;
+
+    static final int NULL = 1;
+    static final int OBJECT = 1 << 1;
+    static final int ARRAY = 1 << 2;
+    static final int SIMPLE = 1 << 3;
+    static final int TEXT = 1 << 4;
+    static final int DIGIT = 1 << 5;
+    static final int REAL_DIGIT = 1 << 6;
+    static final int TRUTH = 1 << 7;
+    static final int STRING = 1 << 8;
+
+    static final int TEXT_SERIES = 1 << 9;
+    static final int DIGIT_SERIES = 1 << 10;
+    static final int REAL_DIGIT_SERIES = 1 << 11;
+    static final int TRUTH_SERIES = 1 << 12;
+    static final int EMAIL_SERIES = 1 << 13;
+
+    private static final Pattern DOUBLE_PATTERN = Pattern.compile("[\\x00-\\x20]*[+-]?(NaN|Infinity|((((\\p{Digit}+)(\\.)?((\\p{Digit}+)?)([eE][+-]?(\\p{Digit}+))?)|(\\.((\\p{Digit}+))([eE][+-]?(\\p{Digit}+))?)|(((0[xX](\\p{XDigit}+)(\\.)?)|(0[xX](\\p{XDigit}+)?(\\.)(\\p{XDigit}+)))[pP][+-]?(\\p{Digit}+)))[fFdD]?))[\\x00-\\x20]*");
+
+    private JsonElementKind() {
+    }
+
+    static final boolean is(int kind, int flag) {
+        return (kind & flag) != 0;
+    }
+
+    /**
+     * Scalar flags: DIGIT and REAL_DIGIT follow getAsLong/getAsDouble (which
+     * also unwrap single-element arrays), TRUTH follows a literal JSON boolean
+     * and TEXT is a primitive that is none of the others.
+     */
+    static final int of(JsonElement element) {
+        if (element == null || element.isJsonNull()) {
+            return NULL;
+        }
+        if (element.isJsonObject()) {
+            return OBJECT;
+        }
+        if (element.isJsonArray()) {
+            JsonArray array = element.getAsJsonArray();
+            return array.size() == 1 ? ARRAY | of(array.get(0)) & (DIGIT | REAL_DIGIT | STRING) : ARRAY;
+        }
+        JsonPrimitive primitive = element.getAsJsonPrimitive();
+        if (primitive.isBoolean()) {
+            return SIMPLE | TRUTH | STRING;
+        }
+        if (primitive.isNumber()) {
+            return SIMPLE | DIGIT | REAL_DIGIT | STRING;
+        }
+        String string = primitive.getAsString();
+        int kind = SIMPLE | STRING;
+        if (isLong(string)) {
+            kind |= DIGIT;
+        }
+        if (isDouble(string)) {
+            kind |= REAL_DIGIT;
+        }
+        return kind == (SIMPLE | STRING) ? kind | TEXT : kind;
+    }
+
+    /**
+     * Series flags follow the series factories, which read each array item as
+     * its clean string: text, truth and email series accept any array, while
+     * digit and real digit series need every item to parse.
+     */
+    static final int seriesOf(JsonElement element) {
+        if (element == null || !element.isJsonArray()) {
+            return 0;
+        }
+        int kind = TEXT_SERIES | TRUTH_SERIES | EMAIL_SERIES | DIGIT_SERIES | REAL_DIGIT_SERIES;
+        for (JsonElement item : element.getAsJsonArray()) {
+            if (!item.isJsonPrimitive()) {
+                return kind & ~(DIGIT_SERIES | REAL_DIGIT_SERIES);
+            }
+            String string = item.getAsString();
+            if (is(kind, DIGIT_SERIES) && !isLong(string)) {
+                kind &= ~DIGIT_SERIES;
+            }
+            if (is(kind, REAL_DIGIT_SERIES) && !isDouble(string)) {
+                kind &= ~REAL_DIGIT_SERIES;
+            }
+            if (!is(kind, DIGIT_SERIES | REAL_DIGIT_SERIES)) {
+                break;
+            }
+        }
+        return kind;
+    }
+
+    /**
+     * Same grammar and range as Long.parseLong(String).
+     */
+    static final boolean isLong(String string) {
+        int length = string.length();
+        if (length == 0) {
+            return false;
+        }
+        int i = 0;
+        long limit = -Long.MAX_VALUE;
+        char first = string.charAt(0);
+        if (first < '0') {
+            if (first == '-') {
+                limit = Long.MIN_VALUE;
+            }
+            else if (first != '+') {
+                return false;
+            }
+            if (length == 1) {
+                return false;
+            }
+            i++;
+        }
+        long multiplicationLimit = limit / 10;
+        long result = 0;
+        while (i < length) {
+            int digit = Character.digit(string.charAt(i++), 10);
+            if (digit < 0 || result < multiplicationLimit) {
+                return false;
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                return false;
+            }
+            result -= digit;
+        }
+        return true;
+    }
+
+    /**
+     * Same grammar as Double.parseDouble(String), using the pattern documented
+     * by Double.valueOf(String) behind a cheap first-character check.
+     */
+    static final boolean isDouble(String string) {
+        int length = string.length();
+        int i = 0;
+        while (i < length && string.charAt(i) <= ' ') {
+            i++;
+        }
+        if (i == length) {
+            return false;
+        }
+        char first = string.charAt(i);
+        if (!(first >= '0' && first <= '9' || first == '.' || first == '+' || first == '-' || first == 'N' || first == 'I')) {
+            return false;
+        }
+        return DOUBLE_PATTERN.matcher(string).matches();
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ *    Copyright 2019 MetaRing s.r.l.
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.metaring.framework;
+
+import java.io.IOException;
+import java.util.Map;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Drives a DataRepresentationVisitor over a parsed tree or a token stream
+ * without allocating any wrapper per node.
+ */
+final class JsonEvents {
+
+    private JsonEvents() {
+    }
+
+    static final void visit(JsonElement element, DataRepresentationVisitor visitor) {
+        if (element == null || element.isJsonNull()) {
+            visitor.nullValue();
+        }
+        else if (element.isJsonObject()) {
+            visitor.startObject();
+            for (Map.Entry<String, JsonElement> entry : element.getAsJsonObject().entrySet()) {
+                visitor.key(entry.getKey());
+                visit(entry.getValue(), visitor);
+            }
+            visitor.endObject();
+        }
+        else if (element.isJsonArray()) {
+            visitor.startArray();
+            for (JsonElement item : element.getAsJsonArray()) {
+                visit(item, visitor);
+            }
+            visitor.endArray();
+        }
+        else {
+            JsonPrimitive primitive = element.getAsJsonPrimitive();
+            if (primitive.isBoolean()) {
+                visitor.value(primitive.getAsBoolean());
+            }
+            else if (primitive.isNumber()) {
+                visitNumber(primitive.getAsNumber(), visitor);
+            }
+            else {
+                visitor.value(primitive.getAsString());
+            }
+        }
+    }
+
+    /**
+     * Emits the events of exactly one JSON value, consuming only the tokens it
+     * is made of.
+     */
+    static final void visit(JsonReader jsonReader, DataRepresentationVisitor visitor) throws IOException {
+        int depth = 0;
+        do {
+            JsonToken token = jsonReader.peek();
+            switch (token) {
+                case BEGIN_OBJECT:
+                    jsonReader.beginObject();
+                    visitor.startObject();
+                    depth++;
+                    break;
+                case END_OBJECT:
+                    jsonReader.endObject();
+                    visitor.endObject();
+                    depth--;
+                    break;
+                case BEGIN_ARRAY:
+                    jsonReader.beginArray();
+                    visitor.startArray();
+                    depth++;
+                    break;
+                case END_ARRAY:
+                    jsonReader.endArray();
+                    visitor.endArray();
+                    depth--;
+                    break;
+                case NAME:
+                    visitor.key(jsonReader.nextName());
+                    break;
+                case STRING:
+                    visitor.value(jsonReader.nextString());
+                    break;
+                case NUMBER:
+                    visitNumber(jsonReader.nextString(), visitor);
+                    break;
+                case BOOLEAN:
+                    visitor.value(jsonReader.nextBoolean());
+                    break;
+                case NULL:
+                    jsonReader.nextNull();
+                    visitor.nullValue();
+                    break;
+                default:
+                    return;
+            }
+        } while (depth > 0);
+    }
+
+    /**
+     * Classifies a tree number by the string form it is written with, as the
+     * token stream sees it. Boxed integers always read as long, and a Double
+     * always has a fraction or an exponent and reads back as the same double,
+     * so only the other Number types go through their string.
+     */
+    private static final void visitNumber(Number number, DataRepresentationVisitor visitor) {
+        if (number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte) {
+            visitor.value(number.longValue());
+        }
+        else if (number instanceof Double) {
+            visitor.value(number.doubleValue());
+        }
+        else {
+            visitNumber(number.toString(), visitor);
+        }
+    }
+
+    private static final void visitNumber(String number, DataRepresentationVisitor visitor) {
+        if (JsonElementKind.isLong(number)) {
+            visitor.value(Long.parseLong(number));
+        }
+        else {
+            visitor.value(Double.parseDouble(number));
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/**
+ *    Copyright 2019 MetaRing s.r.l.
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.metaring.framework;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Shared plumbing for writing JSON straight to an Appendable, a UTF-8
+ * OutputStream or a ByteBuffer, without building the document as a String.
+ */
+final class JsonStreams {
+
+    static final int CHUNK_SIZE = 8192;
+
+    private static final String[] ESCAPES = new String[128];
+
+    static {
+        for (int i = 0; i < 0x20; i++) {
+            ESCAPES[i] = String.format("\\u%04x", i);
+        }
+        ESCAPES['"'] = "\\\"";
+        ESCAPES['\\'] = "\\\\";
+        ESCAPES['\t'] = "\\t";
+        ESCAPES['\b'] = "\\b";
+        ESCAPES['\n'] = "\\n";
+        ESCAPES['\r'] = "\\r";
+        ESCAPES['\f'] = "\\f";
+    }
+
+    private JsonStreams() {
+    }
+
+    static final Writer asWriter(Appendable appendable) {
+        return appendable instanceof Writer ? (Writer) appendable : new AppendableWriter(appendable);
+    }
+
+    /**
+     * The returned writer buffers CHUNK_SIZE characters at a time and must be
+     * flushed, not closed, by the caller so the target stream stays open.
+     */
+    static final Writer newWriter(OutputStream outputStream) {
+        return new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), CHUNK_SIZE);
+    }
+
+    static final OutputStream asOutputStream(ByteBuffer byteBuffer) {
+        return new ByteBufferOutputStream(byteBuffer);
+    }
+
+    /**
+     * Reads the remaining bytes of the buffer, advancing its position.
+     */
+    static final InputStream asInputStream(ByteBuffer byteBuffer) {
+        return new ByteBufferInputStream(byteBuffer);
+    }
+
+    static final void writeNull(Appendable appendable) throws IOException {
+        appendable.append("null");
+    }
+
+    static final void writeLong(Appendable appendable, long value) throws IOException {
+        if (appendable instanceof StringBuilder) {
+            ((StringBuilder) appendable).append(value);
+        }
+        else {
+            appendable.append(Long.toString(value));
+        }
+    }
+
+    static final void writeDouble(Appendable appendable, double value) throws IOException {
+        if (appendable instanceof StringBuilder) {
+            ((StringBuilder) appendable).append(value);
+        }
+        else {
+            appendable.append(Double.toString(value));
+        }
+    }
+
+    static final void writeBoolean(Appendable appendable, boolean value) throws IOException {
+        appendable.append(value ? "true" : "false");
+    }
+
+    /**
+     * Quotes and escapes the same characters as Gson's JsonWriter with HTML
+     * escaping disabled, which is what JsonElement.toString() produces.
+     */
+    static final void writeString(Appendable appendable, String value) throws IOException {
+        appendable.append('"');
+        int last = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String escape;
+            if (c < 128) {
+                escape = ESCAPES[c];
+                if (escape == null) {
+                    continue;
+                }
+            }
+            else if (c == '\u2028') {
+                escape = "\\u2028";
+            }
+            else if (c == '\u2029') {
+                escape = "\\u2029";
+            }
+            else {
+                continue;
+            }
+            if (last < i) {
+                appendable.append(value, last, i);
+            }
+            appendable.append(escape);
+            last = i + 1;
+        }
+        if (last < length) {
+            appendable.append(value, last, length);
+        }
+        appendable.append('"');
+    }
+
+    private static final class AppendableWriter extends Writer {
+
+        private final Appendable appendable;
+
+        AppendableWriter(Appendable appendable) {
+            this.appendable = appendable;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            if (appendable instanceof StringBuilder) {
+                ((StringBuilder) appendable).append(buffer, offset, length);
+            }
+            else {
+                appendable.append(CharBuffer.wrap(buffer, offset, length));
+            }
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            appendable.append((char) c);
+        }
+
+        @Override
+        public void write(String string, int offset, int length) throws IOException {
+            appendable.append(string, offset, offset + length);
+        }
+
+        @Override
+        public Writer append(CharSequence charSequence) throws IOException {
+            appendable.append(charSequence);
+            return this;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (appendable instanceof Flushable) {
+                ((Flushable) appendable).flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer byteBuffer;
+
+        ByteBufferInputStream(ByteBuffer byteBuffer) {
+            this.byteBuffer = byteBuffer;
+        }
+
+        @Override
+        public int read() {
+            return byteBuffer.hasRemaining() ? byteBuffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            int count = Math.min(length, byteBuffer.remaining());
+            if (count == 0) {
+                return -1;
+            }
+            byteBuffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return byteBuffer.remaining();
+        }
+    }
+
+    private static final class ByteBufferOutputStream extends OutputStream {
+
+        private final ByteBuffer byteBuffer;
+
+        ByteBufferOutputStream(ByteBuffer byteBuffer) {
+            this.byteBuffer = byteBuffer;
+        }
+
+        @Override
+        public void write(int b) {
+            byteBuffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            byteBuffer.put(bytes, offset, length);
+        }
+    }
+}
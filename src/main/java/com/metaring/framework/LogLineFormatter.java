@@ -0,0 +1,150 @@
+/**
+ *    Copyright 2019 MetaRing s.r.l.
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.metaring.framework;
+
+import java.util.TimeZone;
+
+/**
+ * Builds log lines as "[yyyy MM dd HH:mm:ss:SSS] [TYPE] message" with state
+ * kept per thread: a builder reused from line to line and the rendered
+ * timestamp, whose date and time fields are only recomputed when the second
+ * changes and which is reused as is within the same millisecond. The time
+ * zone is the default one when the class is loaded.
+ */
+final class LogLineFormatter {
+
+    private static final int TIMESTAMP_LENGTH = 23;
+    private static final int RETAINED_CAPACITY = 8192;
+    private static final TimeZone TIME_ZONE = TimeZone.getDefault();
+    private static final ThreadLocal<LogLineFormatter> FORMATTERS = ThreadLocal.withInitial(LogLineFormatter::new);
+
+    private final char[] timestamp = "0000 00 00 00:00:00:000".toCharArray();
+    private StringBuilder line = new StringBuilder(128);
+    private StringBuilder message = new StringBuilder(128);
+    private boolean formattingMessage;
+    private long timestampMillis = Long.MIN_VALUE;
+    private long timestampSecond = Long.MIN_VALUE;
+
+    private LogLineFormatter() {
+    }
+
+    static final LogLineFormatter get() {
+        return FORMATTERS.get();
+    }
+
+    /**
+     * The returned String is the only object allocated once the thread's
+     * builder has grown to the size of its lines. Logging it synchronously
+     * also costs a java.util.logging LogRecord; only the asynchronous writer
+     * thread handles lines without allocating.
+     */
+    String format(long millis, String typeName, String message) {
+        StringBuilder line = this.line;
+        line.setLength(0);
+        line.append('[').append(timestamp(millis), 0, TIMESTAMP_LENGTH).append("] [").append(typeName).append("] ").append(message);
+        String result = line.toString();
+        if (line.capacity() > RETAINED_CAPACITY) {
+            this.line = new StringBuilder(128);
+        }
+        return result;
+    }
+
+    /**
+     * Replaces each {} of the pattern with the next argument, as
+     * String.valueOf does; placeholders without an argument are kept and
+     * arguments without a placeholder are ignored. An argument whose toString
+     * logs again gets a builder of its own, so the outer message is kept.
+     */
+    String formatMessage(String pattern, Object[] arguments) {
+        if (pattern == null || arguments == null || arguments.length == 0) {
+            return pattern;
+        }
+        if (formattingMessage) {
+            return appendMessage(new StringBuilder(pattern.length() + 16), pattern, arguments).toString();
+        }
+        formattingMessage = true;
+        try {
+            StringBuilder message = this.message;
+            message.setLength(0);
+            String result = appendMessage(message, pattern, arguments).toString();
+            if (message.capacity() > RETAINED_CAPACITY) {
+                this.message = new StringBuilder(128);
+            }
+            return result;
+        }
+        finally {
+            formattingMessage = false;
+        }
+    }
+
+    private static StringBuilder appendMessage(StringBuilder message, String pattern, Object[] arguments) {
+        int last = 0;
+        int argument = 0;
+        int placeholder;
+        while (argument < arguments.length && (placeholder = pattern.indexOf("{}", last)) >= 0) {
+            message.append(pattern, last, placeholder).append(arguments[argument++]);
+            last = placeholder + 2;
+        }
+        return message.append(pattern, last, pattern.length());
+    }
+
+    private char[] timestamp(long millis) {
+        if (millis == timestampMillis) {
+            return timestamp;
+        }
+        long local = millis + TIME_ZONE.getOffset(millis);
+        long second = Math.floorDiv(local, 1000L);
+        if (second != timestampSecond) {
+            writeDateTime(second);
+            timestampSecond = second;
+        }
+        writeDigits((int) Math.floorMod(local, 1000L), 20, 3);
+        timestampMillis = millis;
+        return timestamp;
+    }
+
+    /**
+     * Converts seconds since the local epoch to the proleptic Gregorian
+     * calendar fields, as java.time does, without allocating.
+     */
+    private void writeDateTime(long second) {
+        long days = Math.floorDiv(second, 86400L);
+        int secondOfDay = (int) Math.floorMod(second, 86400L);
+        long shifted = days + 719468L;
+        long era = Math.floorDiv(shifted, 146097L);
+        long dayOfEra = shifted - era * 146097L;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460L + dayOfEra / 36524L - dayOfEra / 146096L) / 365L;
+        long dayOfYear = dayOfEra - (365L * yearOfEra + yearOfEra / 4L - yearOfEra / 100L);
+        long monthIndex = (5L * dayOfYear + 2L) / 153L;
+        int day = (int) (dayOfYear - (153L * monthIndex + 2L) / 5L + 1L);
+        int month = (int) (monthIndex < 10L ? monthIndex + 3L : monthIndex - 9L);
+        long year = yearOfEra + era * 400L + (month <= 2 ? 1L : 0L);
+        writeDigits((int) Math.floorMod(year, 10000L), 0, 4);
+        writeDigits(month, 5, 2);
+        writeDigits(day, 8, 2);
+        writeDigits(secondOfDay / 3600, 11, 2);
+        writeDigits(secondOfDay / 60 % 60, 14, 2);
+        writeDigits(secondOfDay % 60, 17, 2);
+    }
+
+    private void writeDigits(int value, int position, int count) {
+        for (int i = position + count - 1; i >= position; i--) {
+            timestamp[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
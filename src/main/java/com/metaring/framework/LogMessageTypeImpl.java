@@ -19,24 +19,73 @@ package com.metaring.framework;
 import com.metaring.framework.util.log.LogMessageType;
 import com.metaring.framework.util.log.LogMessageTypeProvider;
 
+/**
+ * Priorities follow the java.util.logging scale: ENTERING is FINER, EXITING
+ * sits between FINER and FINE so that every priority names one type, DEBUG
+ * is FINE, then CONFIG, INFO, WARNING and SEVERE. Each type also owns one bit
+ * of the enabled mask a logger keeps.
+ */
 final class LogMessageTypeImpl implements LogMessageType, LogMessageTypeProvider {
-    public static final LogMessageType ENTERING = new LogMessageTypeImpl("ENTERING", 0l);
-    public static final LogMessageType EXITING = new LogMessageTypeImpl("EXITING", 0l);
-    public static final LogMessageType INFO = new LogMessageTypeImpl("INFO", 0l);
-    public static final LogMessageType DEBUG = new LogMessageTypeImpl("DEBUG", 0l);
-    public static final LogMessageType CONFIG = new LogMessageTypeImpl("CONFIG", 0l);
-    public static final LogMessageType WARNING = new LogMessageTypeImpl("WARNING", 0l);
-    public static final LogMessageType SEVERE = new LogMessageTypeImpl("SEVERE", 0l);
+    static final int ENTERING_MASK = 1;
+    static final int EXITING_MASK = 1 << 1;
+    static final int DEBUG_MASK = 1 << 2;
+    static final int CONFIG_MASK = 1 << 3;
+    static final int INFO_MASK = 1 << 4;
+    static final int WARNING_MASK = 1 << 5;
+    static final int SEVERE_MASK = 1 << 6;
+    public static final LogMessageType ENTERING = new LogMessageTypeImpl("ENTERING", 400l, ENTERING_MASK);
+    public static final LogMessageType EXITING = new LogMessageTypeImpl("EXITING", 450l, EXITING_MASK);
+    public static final LogMessageType INFO = new LogMessageTypeImpl("INFO", 800l, INFO_MASK);
+    public static final LogMessageType DEBUG = new LogMessageTypeImpl("DEBUG", 500l, DEBUG_MASK);
+    public static final LogMessageType CONFIG = new LogMessageTypeImpl("CONFIG", 700l, CONFIG_MASK);
+    public static final LogMessageType WARNING = new LogMessageTypeImpl("WARNING", 900l, WARNING_MASK);
+    public static final LogMessageType SEVERE = new LogMessageTypeImpl("SEVERE", 1000l, SEVERE_MASK);
+    private static final LogMessageType[] VALUES = { ENTERING, EXITING, DEBUG, CONFIG, INFO, WARNING, SEVERE };
     private String name;
     private Long priorityLevel;
+    private int mask;
 
     public LogMessageTypeImpl() {
-        this(null, null);
+        this(null, null, 0);
     }
 
-    private LogMessageTypeImpl(String name, Long priorityLevel) {
+    private LogMessageTypeImpl(String name, Long priorityLevel, int mask) {
         this.name = name;
         this.priorityLevel = priorityLevel;
+        this.mask = mask;
+    }
+
+    /**
+     * The bit of the given type, matched by name when it comes from another
+     * provider; 0 when unknown.
+     */
+    static final int maskOf(LogMessageType logMessageType) {
+        if (logMessageType instanceof LogMessageTypeImpl) {
+            return ((LogMessageTypeImpl) logMessageType).mask;
+        }
+        for (LogMessageType value : VALUES) {
+            if (logMessageType != null && value.getName().equals(logMessageType.getName())) {
+                return ((LogMessageTypeImpl) value).mask;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * The mask of the types at or above the given minimum priority. SEVERE is
+     * always enabled, and only SEVERE is when there is no minimum.
+     */
+    static final int enabledFrom(LogMessageType minimumLogMessageType) {
+        int enabled = SEVERE_MASK;
+        Long minimumPriorityLevel = minimumLogMessageType == null ? null : minimumLogMessageType.getPriorityLevel();
+        if (minimumPriorityLevel != null) {
+            for (LogMessageType value : VALUES) {
+                if (value.getPriorityLevel().longValue() >= minimumPriorityLevel.longValue()) {
+                    enabled |= ((LogMessageTypeImpl) value).mask;
+                }
+            }
+        }
+        return enabled;
     }
 
     public String getName() {
@@ -76,19 +125,25 @@ final class LogMessageTypeImpl implements LogMessageType, LogMessageTypeProvider
 
     public LogMessageType getByPriorityLevel(Long priorityLevel) {
         if (priorityLevel != null) {
-            if (priorityLevel == INFO.getPriorityLevel()) {
+            if (priorityLevel.longValue() == ENTERING.getPriorityLevel().longValue()) {
+                return ENTERING;
+            }
+            if (priorityLevel.longValue() == EXITING.getPriorityLevel().longValue()) {
+                return EXITING;
+            }
+            if (priorityLevel.longValue() == INFO.getPriorityLevel().longValue()) {
                 return INFO;
             }
-            if (priorityLevel == DEBUG.getPriorityLevel()) {
+            if (priorityLevel.longValue() == DEBUG.getPriorityLevel().longValue()) {
                 return DEBUG;
             }
-            if (priorityLevel == CONFIG.getPriorityLevel()) {
+            if (priorityLevel.longValue() == CONFIG.getPriorityLevel().longValue()) {
                 return CONFIG;
             }
-            if (priorityLevel == WARNING.getPriorityLevel()) {
+            if (priorityLevel.longValue() == WARNING.getPriorityLevel().longValue()) {
                 return WARNING;
             }
-            if (priorityLevel == SEVERE.getPriorityLevel()) {
+            if (priorityLevel.longValue() == SEVERE.getPriorityLevel().longValue()) {
                 return SEVERE;
             }
         }
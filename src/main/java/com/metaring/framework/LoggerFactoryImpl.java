@@ -16,18 +16,83 @@
 
 package com.metaring.framework;
 
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.metaring.framework.AsyncLogWriter.FullBufferPolicy;
 import com.metaring.framework.util.log.LogMessageType;
 import com.metaring.framework.util.log.LogMessageTypeProvider;
 import com.metaring.framework.util.log.Logger;
 import com.metaring.framework.util.log.LoggerFactory;
 
 final class LoggerFactoryImpl implements LoggerFactory {
+    static final String ASYNC_CAPACITY_PROPERTY = "metaring.log.async.capacity";
+    static final String ASYNC_POLICY_PROPERTY = "metaring.log.async.policy";
+    private static final AtomicBoolean INVALID_POLICY_REPORTED = new AtomicBoolean();
     private LogMessageTypeProvider logMessageTypeProvider;
     private Long defaultStackPosition;
+    private final AtomicReference<AsyncLogWriter> asyncLogWriter = new AtomicReference<>();
+    private final WeakRegistry<LoggerKey, LoggerImpl> loggers = new WeakRegistry<>();
 
     public LoggerFactoryImpl(LogMessageTypeProvider logMessageTypeProvider) {
         this.logMessageTypeProvider = logMessageTypeProvider;
         this.defaultStackPosition = 3l;
+        Integer asyncCapacity = Integer.getInteger(ASYNC_CAPACITY_PROPERTY);
+        if (asyncCapacity != null && asyncCapacity > 0) {
+            this.enableAsync(asyncCapacity, asyncPolicy());
+        }
+    }
+
+    /**
+     * An unknown value must not make the factory unusable, so it falls back
+     * to BLOCK and is reported once on System.err.
+     */
+    private static FullBufferPolicy asyncPolicy() {
+        String policy = System.getProperty(ASYNC_POLICY_PROPERTY, FullBufferPolicy.BLOCK.name());
+        try {
+            return FullBufferPolicy.valueOf(policy.trim().toUpperCase());
+        }
+        catch (IllegalArgumentException e) {
+            if (INVALID_POLICY_REPORTED.compareAndSet(false, true)) {
+                System.err.println("Unknown " + ASYNC_POLICY_PROPERTY + " '" + policy + "', using " + FullBufferPolicy.BLOCK.name());
+            }
+            return FullBufferPolicy.BLOCK;
+        }
+    }
+
+    /**
+     * Every logger of this factory hands its lines to a single background
+     * writer from now on. Also enabled at construction time by the
+     * metaring.log.async.capacity and metaring.log.async.policy system
+     * properties.
+     */
+    public synchronized void enableAsync(int capacity, FullBufferPolicy fullBufferPolicy) {
+        AsyncLogWriter previous = this.asyncLogWriter.getAndSet(new AsyncLogWriter(capacity, fullBufferPolicy, AsyncLogWriter.DEFAULT_SAMPLE_RATE, LoggerImpl.LOG_SEVERE_TAG));
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Writes the pending lines and goes back to synchronous output.
+     */
+    public synchronized void disableAsync() {
+        AsyncLogWriter previous = this.asyncLogWriter.getAndSet(null);
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Waits until the lines handed to the background writer so far are
+     * written; returns at once in synchronous mode.
+     */
+    public void flush() {
+        AsyncLogWriter asyncLogWriter = this.asyncLogWriter.get();
+        if (asyncLogWriter != null) {
+            asyncLogWriter.flush();
+        }
     }
 
     public Logger create(String loggedSystemName) {
@@ -45,6 +110,13 @@ final class LoggerFactoryImpl implements LoggerFactory {
         return logger;
     }
 
+    /**
+     * Loggers are shared: the same name, level and stack position give the
+     * same instance for as long as anybody holds it. A setter called on a
+     * shared logger changes it for all its holders, as with
+     * java.util.logging, and takes it out of the registry, so later calls
+     * still get a logger with the level and stack position they ask for.
+     */
     public Logger create(String loggedSystemName, LogMessageType minimumLogMessageType, Long stackPosition) {
         if (loggedSystemName == null) {
             return null;
@@ -52,7 +124,33 @@ final class LoggerFactoryImpl implements LoggerFactory {
         if (minimumLogMessageType == null) {
             minimumLogMessageType = this.logMessageTypeProvider.INFO();
         }
-        LoggerImpl logger = new LoggerImpl(loggedSystemName, minimumLogMessageType, stackPosition);
-        return logger;
+        LogMessageType logMessageType = minimumLogMessageType;
+        return this.loggers.computeIfAbsent(new LoggerKey(loggedSystemName, logMessageType, stackPosition), key -> new LoggerImpl(loggedSystemName, logMessageType, stackPosition, this.asyncLogWriter, logger -> this.loggers.remove(key, logger)));
+    }
+
+    private static final class LoggerKey {
+        private final String loggedSystemName;
+        private final LogMessageType minimumLogMessageType;
+        private final Long stackPosition;
+
+        LoggerKey(String loggedSystemName, LogMessageType minimumLogMessageType, Long stackPosition) {
+            this.loggedSystemName = loggedSystemName;
+            this.minimumLogMessageType = minimumLogMessageType;
+            this.stackPosition = stackPosition;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof LoggerKey)) {
+                return false;
+            }
+            LoggerKey other = (LoggerKey) o;
+            return this.loggedSystemName.equals(other.loggedSystemName) && this.minimumLogMessageType.equals(other.minimumLogMessageType) && Objects.equals(this.stackPosition, other.stackPosition);
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * this.loggedSystemName.hashCode() + this.minimumLogMessageType.hashCode()) * 31 + Objects.hashCode(this.stackPosition);
+        }
     }
 }
@@ -16,8 +16,9 @@
 
 package com.metaring.framework;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Handler;
 import java.util.logging.Level;
@@ -28,31 +29,53 @@ import com.metaring.framework.util.log.Logger;
 
 final class LoggerImpl implements Logger {
     private String loggedSystemName;
-    private LogMessageType minimumLogLevel;
+    private volatile LogMessageType minimumLogLevel;
     private java.util.logging.Logger javaLogger;
     private String blank;
-    private Long actualStackPosition;
-    private int stackPosition;
-    private static final String LOG_SEVERE_TAG = LogMessageTypeImpl.SEVERE.getName();
+    private volatile Long actualStackPosition;
+    private volatile int stackPosition;
+    private final AtomicReference<AsyncLogWriter> asyncLogWriter;
+    private volatile int enabledTypes;
+    private volatile Consumer<LoggerImpl> onChange;
+    static final String LOG_SEVERE_TAG = LogMessageTypeImpl.SEVERE.getName();
+    private static final WeakRegistry<String, java.util.logging.Logger> JAVA_LOGGERS = new WeakRegistry<>();
 
     public LoggerImpl(String loggedSystemName, LogMessageType minimumLogLevel, Long stackPosition) {
+        this(loggedSystemName, minimumLogLevel, stackPosition, new AtomicReference<>(), null);
+    }
+
+    /**
+     * With a writer in the reference, lines are handed to its background
+     * thread instead of being written on the calling one; the reference is
+     * shared with the factory, which switches all its loggers at once.
+     * onChange is told, once, that a setter was first called.
+     */
+    LoggerImpl(String loggedSystemName, LogMessageType minimumLogLevel, Long stackPosition, AtomicReference<AsyncLogWriter> asyncLogWriter, Consumer<LoggerImpl> onChange) {
         this.blank = "";
         this.loggedSystemName = loggedSystemName;
+        this.asyncLogWriter = asyncLogWriter;
         this.setActualStackPosition(stackPosition);
         this.setMinimumLogLevel(minimumLogLevel);
-        this.setJavaLogger();
+        this.javaLogger = JAVA_LOGGERS.computeIfAbsent(loggedSystemName, LoggerImpl::newJavaLogger);
+        this.onChange = onChange;
     }
 
-    private void setJavaLogger() {
-        this.javaLogger = java.util.logging.Logger.getLogger(this.loggedSystemName);
-        java.util.logging.Logger parentLogger = this.javaLogger.getParent();
+    /**
+     * Replaces the handlers of the named java.util.logging logger and of its
+     * parent with the console one. Runs once per name, however many loggers
+     * are created for it and from however many threads; the name is
+     * forgotten once no logger uses it any more.
+     */
+    private static java.util.logging.Logger newJavaLogger(String loggedSystemName) {
+        java.util.logging.Logger javaLogger = java.util.logging.Logger.getLogger(loggedSystemName);
+        java.util.logging.Logger parentLogger = javaLogger.getParent();
         if (parentLogger != null) {
             for (Handler h : parentLogger.getHandlers()) {
                 parentLogger.removeHandler(h);
             }
         }
-        for (Handler h : this.javaLogger.getHandlers()) {
-            this.javaLogger.removeHandler(h);
+        for (Handler h : javaLogger.getHandlers()) {
+            javaLogger.removeHandler(h);
         }
         ConsoleHandler consoleHandler = new ConsoleHandler() {
 
@@ -68,8 +91,9 @@ final class LoggerImpl implements Logger {
             }
         };
         consoleHandler.setLevel(Level.ALL);
-        this.javaLogger.addHandler(consoleHandler);
-        this.javaLogger.setLevel(Level.ALL);
+        javaLogger.addHandler(consoleHandler);
+        javaLogger.setLevel(Level.ALL);
+        return javaLogger;
     }
 
     public String getLoggedSystemName() {
@@ -80,80 +104,146 @@ final class LoggerImpl implements Logger {
         return this.minimumLogLevel;
     }
 
-    public void setMinimumLogLevel(LogMessageType minimumLogLevel) {
+    /**
+     * Also recomputes which message types are enabled, so that each call only
+     * tests one bit.
+     */
+    public synchronized void setMinimumLogLevel(LogMessageType minimumLogLevel) {
+        this.changed();
         this.minimumLogLevel = minimumLogLevel;
+        this.enabledTypes = LogMessageTypeImpl.enabledFrom(minimumLogLevel);
+    }
+
+    public boolean isEnabled(LogMessageType messageType) {
+        return (this.enabledTypes & LogMessageTypeImpl.maskOf(messageType)) != 0;
+    }
+
+    /**
+     * Turns a single message type on or off at runtime, whatever the minimum
+     * level; the next setMinimumLogLevel call recomputes the whole mask.
+     */
+    public synchronized void setEnabled(LogMessageType messageType, boolean enabled) {
+        this.changed();
+        int mask = LogMessageTypeImpl.maskOf(messageType);
+        this.enabledTypes = enabled ? this.enabledTypes | mask : this.enabledTypes & ~mask;
     }
 
     public Long getActualStackPosition() {
         return this.actualStackPosition;
     }
 
-    public void setActualStackPosition(Long actualStackPosition) {
-        this.actualStackPosition = actualStackPosition;
+    public synchronized void setActualStackPosition(Long actualStackPosition) {
+        this.changed();
         this.stackPosition = actualStackPosition.intValue();
+        this.actualStackPosition = actualStackPosition;
+    }
+
+    private void changed() {
+        Consumer<LoggerImpl> onChange = this.onChange;
+        if (onChange != null) {
+            this.onChange = null;
+            onChange.accept(this);
+        }
     }
 
     public String entering(String prefix) {
-        return this.print(LogMessageTypeImpl.ENTERING, prefix);
+        return this.print(LogMessageTypeImpl.ENTERING_MASK, LogMessageTypeImpl.ENTERING, prefix);
     }
 
     public String entering() {
-        return this.print(LogMessageTypeImpl.ENTERING, this.blank);
+        return this.print(LogMessageTypeImpl.ENTERING_MASK, LogMessageTypeImpl.ENTERING, this.blank);
     }
 
     public String exiting(String prefix) {
-        return this.print(LogMessageTypeImpl.EXITING, prefix);
+        return this.print(LogMessageTypeImpl.EXITING_MASK, LogMessageTypeImpl.EXITING, prefix);
     }
 
     public String exiting() {
-        return this.print(LogMessageTypeImpl.EXITING, this.blank);
+        return this.print(LogMessageTypeImpl.EXITING_MASK, LogMessageTypeImpl.EXITING, this.blank);
     }
 
     public String info(String message) {
-        return this.print(LogMessageTypeImpl.INFO, message);
+        return this.print(LogMessageTypeImpl.INFO_MASK, LogMessageTypeImpl.INFO, message);
+    }
+
+    /**
+     * The supplier is only called when INFO is enabled.
+     */
+    public String info(Supplier<String> message) {
+        return (this.enabledTypes & LogMessageTypeImpl.INFO_MASK) == 0 ? null : this.print(LogMessageTypeImpl.INFO_MASK, LogMessageTypeImpl.INFO, message.get());
+    }
+
+    /**
+     * Each {} of the pattern is replaced by the next argument; the message is
+     * only built when INFO is enabled.
+     */
+    public String info(String pattern, Object... arguments) {
+        return (this.enabledTypes & LogMessageTypeImpl.INFO_MASK) == 0 ? null : this.print(LogMessageTypeImpl.INFO_MASK, LogMessageTypeImpl.INFO, LogLineFormatter.get().formatMessage(pattern, arguments));
     }
 
     public String debug(String message) {
-        return this.print(LogMessageTypeImpl.DEBUG, message);
+        return this.print(LogMessageTypeImpl.DEBUG_MASK, LogMessageTypeImpl.DEBUG, message);
     }
 
+    public String debug(Supplier<String> message) {
+        return (this.enabledTypes & LogMessageTypeImpl.DEBUG_MASK) == 0 ? null : this.print(LogMessageTypeImpl.DEBUG_MASK, LogMessageTypeImpl.DEBUG, message.get());
+    }
+
+    public String debug(String pattern, Object... arguments) {
+        return (this.enabledTypes & LogMessageTypeImpl.DEBUG_MASK) == 0 ? null : this.print(LogMessageTypeImpl.DEBUG_MASK, LogMessageTypeImpl.DEBUG, LogLineFormatter.get().formatMessage(pattern, arguments));
+    }
+
+    /**
+     * The value is only turned into a String when CONFIG is enabled.
+     */
     public String config(String parameterName, Object parameterValue) {
+        if ((this.enabledTypes & LogMessageTypeImpl.CONFIG_MASK) == 0) {
+            return null;
+        }
         String parameterValueString = "null";
         if (parameterValue != null) {
-            parameterValueString = parameterValue instanceof String ? "\"" + parameterValue.toString() + "\"" : (parameterValue instanceof String ? "\"" + ((String) parameterValue) + "\"" : parameterValue.toString());
+            parameterValueString = parameterValue instanceof String ? "\"" + parameterValue + "\"" : parameterValue.toString();
         }
-        String messageString = parameterName + " = " + parameterValueString;
-        String message = messageString;
-        return this.print(LogMessageTypeImpl.CONFIG, message);
+        return this.print(LogMessageTypeImpl.CONFIG_MASK, LogMessageTypeImpl.CONFIG, parameterName + " = " + parameterValueString);
     }
 
     public String warning(String message) {
-        return this.print(LogMessageTypeImpl.WARNING, message);
+        return this.print(LogMessageTypeImpl.WARNING_MASK, LogMessageTypeImpl.WARNING, message);
+    }
+
+    public String warning(Supplier<String> message) {
+        return (this.enabledTypes & LogMessageTypeImpl.WARNING_MASK) == 0 ? null : this.print(LogMessageTypeImpl.WARNING_MASK, LogMessageTypeImpl.WARNING, message.get());
+    }
+
+    public String warning(String pattern, Object... arguments) {
+        return (this.enabledTypes & LogMessageTypeImpl.WARNING_MASK) == 0 ? null : this.print(LogMessageTypeImpl.WARNING_MASK, LogMessageTypeImpl.WARNING, LogLineFormatter.get().formatMessage(pattern, arguments));
     }
 
     public String severe(String message) {
-        return this.print(LogMessageTypeImpl.SEVERE, message);
+        return this.print(LogMessageTypeImpl.SEVERE_MASK, LogMessageTypeImpl.SEVERE, message);
     }
 
-    private String print(LogMessageType messageType, String message) {
+    public String severe(Supplier<String> message) {
+        return this.print(LogMessageTypeImpl.SEVERE_MASK, LogMessageTypeImpl.SEVERE, message.get());
+    }
+
+    public String severe(String pattern, Object... arguments) {
+        return this.print(LogMessageTypeImpl.SEVERE_MASK, LogMessageTypeImpl.SEVERE, LogLineFormatter.get().formatMessage(pattern, arguments));
+    }
+
+    private String print(int type, LogMessageType messageType, String message) {
         String output = null;
-        if (messageType == LogMessageTypeImpl.SEVERE || this.minimumLogLevel != null && messageType.getPriorityLevel() >= this.minimumLogLevel.getPriorityLevel()) {
+        if ((this.enabledTypes & type) != 0) {
             String messageString = "null";
-            if (message != null && message != null) {
+            if (message != null) {
                 messageString = message;
             }
-            StringBuilder sb = new StringBuilder();
-            sb.append("[");
-            sb.append(this.getDateToString());
-            sb.append("]");
-            sb.append(" [");
-            sb.append(messageType.getName());
-            sb.append("]");
-            sb.append(" ");
-            sb.append(messageString);
-            String outputString = sb.toString();
+            String outputString = LogLineFormatter.get().format(System.currentTimeMillis(), messageType.getName(), messageString);
             output = outputString;
-            this.javaLogger.log(Level.FINEST, outputString);
+            AsyncLogWriter asyncLogWriter = this.asyncLogWriter.get();
+            if (asyncLogWriter == null || !asyncLogWriter.publish(outputString)) {
+                this.javaLogger.log(Level.FINEST, outputString);
+            }
         }
         return output;
     }
@@ -169,11 +259,4 @@ final class LoggerImpl implements Logger {
         return callingInfos;
     }
 
-    private String getDateToString() {
-        String dateString = null;
-        SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy MM dd HH:mm:ss:SSS");
-        dateString = simpleDateFormat.format(new Date());
-        return dateString;
-    }
-
 }
@@ -0,0 +1,102 @@
+/**
+ *    Copyright 2019 MetaRing s.r.l.
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.metaring.framework;
+
+import java.util.function.Supplier;
+
+import com.metaring.framework.util.log.LogMessageType;
+import com.metaring.framework.util.log.Logger;
+
+/**
+ * Lazy and parameterised logging for callers that only hold a Logger. The
+ * message is built only when its type is enabled: loggers of this package
+ * answer with one bit test, any other logger is judged by its minimum level.
+ */
+public final class Loggers {
+
+    private Loggers() {
+    }
+
+    public static final boolean isEnabled(Logger logger, LogMessageType messageType) {
+        if (logger == null) {
+            return false;
+        }
+        if (logger instanceof LoggerImpl) {
+            return ((LoggerImpl) logger).isEnabled(messageType);
+        }
+        return (LogMessageTypeImpl.enabledFrom(logger.getMinimumLogLevel()) & LogMessageTypeImpl.maskOf(messageType)) != 0;
+    }
+
+    public static final String debug(Logger logger, Supplier<String> message) {
+        if (logger instanceof LoggerImpl) {
+            return ((LoggerImpl) logger).debug(message);
+        }
+        return isEnabled(logger, LogMessageTypeImpl.DEBUG) ? logger.debug(message.get()) : null;
+    }
+
+    public static final String debug(Logger logger, String pattern, Object... arguments) {
+        if (logger instanceof LoggerImpl) {
+            return ((LoggerImpl) logger).debug(pattern, arguments);
+        }
+        return isEnabled(logger, LogMessageTypeImpl.DEBUG) ? logger.debug(LogLineFormatter.get().formatMessage(pattern, arguments)) : null;
+    }
+
+    public static final String info(Logger logger, Supplier<String> message) {
+        if (logger instanceof LoggerImpl) {
+            return ((LoggerImpl) logger).info(message);
+        }
+        return isEnabled(logger, LogMessageTypeImpl.INFO) ? logger.info(message.get()) : null;
+    }
+
+    public static final String info(Logger logger, String pattern, Object... arguments) {
+        if (logger instanceof LoggerImpl) {
+            return ((LoggerImpl) logger).info(pattern, arguments);
+        }
+        return isEnabled(logger, LogMessageTypeImpl.INFO) ? logger.info(LogLineFormatter.get().formatMessage(pattern, arguments)) : null;
+    }
+
+    public static final String warning(Logger logger, Supplier<String> message) {
+        if (logger instanceof LoggerImpl) {
+            return ((LoggerImpl) logger).warning(message);
+        }
+        return isEnabled(logger, LogMessageTypeImpl.WARNING) ? logger.warning(message.get()) : null;
+    }
+
+    public static final String warning(Logger logger, String pattern, Object... arguments) {
+        if (logger instanceof LoggerImpl) {
+            return ((LoggerImpl) logger).warning(pattern, arguments);
+        }
+        return isEnabled(logger, LogMessageTypeImpl.WARNING) ? logger.warning(LogLineFormatter.get().formatMessage(pattern, arguments)) : null;
+    }
+
+    /**
+     * SEVERE is always enabled, so the message is always built.
+     */
+    public static final String severe(Logger logger, Supplier<String> message) {
+        if (logger instanceof LoggerImpl) {
+            return ((LoggerImpl) logger).severe(message);
+        }
+        return logger == null ? null : logger.severe(message.get());
+    }
+
+    public static final String severe(Logger logger, String pattern, Object... arguments) {
+        if (logger instanceof LoggerImpl) {
+            return ((LoggerImpl) logger).severe(pattern, arguments);
+        }
+        return logger == null ? null : logger.severe(LogLineFormatter.get().formatMessage(pattern, arguments));
+    }
+}
@@ -0,0 +1,282 @@
+/**
+ *    Copyright 2019 MetaRing s.r.l.
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.metaring.framework;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * The List operations of the series of references, over an Object[] that
+ * slices and views share copy-on-write, see ArraySeries.
+ */
+abstract class ObjectSeries<E> extends ArraySeries<E, Object[]> {
+
+    private static final long serialVersionUID = 3314870651286069263L;
+    private static final Object[] EMPTY = {};
+
+    ObjectSeries() {
+        super(EMPTY, 0, 0, false, false);
+    }
+
+    /**
+     * Collections are copied once, through toArray.
+     */
+    ObjectSeries(Iterable<? extends E> iterable) {
+        this();
+        if (iterable instanceof Collection) {
+            Object[] values = ((Collection<? extends E>) iterable).toArray();
+            elements = values.length == 0 ? EMPTY : Arrays.copyOf(values, values.length, Object[].class);
+            size = values.length;
+        }
+        else {
+            for (E value : iterable) {
+                add(value);
+            }
+        }
+    }
+
+    ObjectSeries(Object[] elements, int offset, int size, boolean shared, boolean readOnly) {
+        super(elements, offset, size, shared, readOnly);
+    }
+
+    @Override
+    final Object[] newArray(int length) {
+        return length == 0 ? EMPTY : new Object[length];
+    }
+
+    @Override
+    final int length(Object[] array) {
+        return array.length;
+    }
+
+    @Override
+    final void release(int from, int to) {
+        Arrays.fill(elements, from, to, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    final E elementAt(int index) {
+        return (E) elements[offset + index];
+    }
+
+    @Override
+    public E get(int index) {
+        checkIndex(index);
+        return elementAt(index);
+    }
+
+    @Override
+    public E set(int index, E element) {
+        beforeChange();
+        checkIndex(index);
+        E previous = elementAt(index);
+        elements[index] = element;
+        return previous;
+    }
+
+    @Override
+    public boolean add(E e) {
+        beforeChange();
+        ensureCapacity(size + 1);
+        elements[size++] = e;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        beforeChange();
+        insertRoom(index, 1);
+        elements[index] = element;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        return addAll(size, c);
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends E> c) {
+        beforeChange();
+        checkPositionIndex(index);
+        Object[] values = c.toArray();
+        if (values.length == 0) {
+            return false;
+        }
+        insertRoom(index, values.length);
+        System.arraycopy(values, 0, elements, index, values.length);
+        return true;
+    }
+
+    @Override
+    public E remove(int index) {
+        beforeChange();
+        checkIndex(index);
+        E previous = elementAt(index);
+        removeAt(index);
+        return previous;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int index = indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        for (int i = 0; i < size; i++) {
+            if (Objects.equals(o, elements[offset + i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (Objects.equals(o, elements[offset + i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        beforeChange();
+        int oldSize = size;
+        int kept = 0;
+        int i = 0;
+        try {
+            for (; i < oldSize; i++) {
+                E value = elementAt(i);
+                if (!filter.test(value)) {
+                    elements[kept++] = value;
+                }
+            }
+        }
+        finally {
+            if (i < oldSize) {
+                System.arraycopy(elements, i, elements, kept, oldSize - i);
+                kept += oldSize - i;
+            }
+            if (kept != oldSize) {
+                release(kept, oldSize);
+                size = kept;
+                modCount++;
+            }
+        }
+        return kept != oldSize;
+    }
+
+    /**
+     * Large arguments are hashed once instead of being scanned for every
+     * item, unless they are already sets.
+     */
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        Collection<?> lookup = SeriesSets.forLookup(c);
+        return removeIf(lookup::contains);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        Collection<?> lookup = SeriesSets.forLookup(c);
+        return removeIf(value -> !lookup.contains(value));
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        return SeriesSets.isLarge(c) && size > SeriesSets.THRESHOLD ? new HashSet<>(this).containsAll(c) : super.containsAll(c);
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<E> operator) {
+        beforeChange();
+        for (int i = 0; i < size; i++) {
+            elements[i] = operator.apply(elementAt(i));
+        }
+        modCount++;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void sort(Comparator<? super E> c) {
+        beforeChange();
+        Arrays.sort((E[]) elements, 0, size, c);
+        modCount++;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T[] toArray(T[] a) {
+        if (a.length < size) {
+            return (T[]) Arrays.copyOfRange(elements, offset, offset + size, a.getClass());
+        }
+        System.arraycopy(elements, offset, a, 0, size);
+        if (a.length > size) {
+            a[size] = null;
+        }
+        return a;
+    }
+
+    /**
+     * Splits the backing array directly, so stream() and parallelStream()
+     * are sized and divide evenly instead of walking the iterator.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Spliterator<E> spliterator() {
+        return (Spliterator<E>) Spliterators.spliterator(elements, offset, offset + size, Spliterator.ORDERED);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        for (int i = 0; i < size; i++) {
+            out.writeObject(elements[offset + i]);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        elements = newArray(size);
+        for (int i = 0; i < size; i++) {
+            elements[i] = in.readObject();
+        }
+    }
+}
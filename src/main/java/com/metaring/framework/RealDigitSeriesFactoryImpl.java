@@ -16,11 +16,15 @@
 
 package com.metaring.framework;
 
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.io.IOException;
 import java.util.function.Function;
+import java.util.stream.Collector;
+import java.util.stream.DoubleStream;
 import java.util.stream.Stream;
 
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+
 import com.metaring.framework.type.factory.RealDigitSeriesFactory;
 import com.metaring.framework.type.series.RealDigitSeries;
 
@@ -39,12 +43,61 @@ final class RealDigitSeriesFactoryImpl implements RealDigitSeriesFactory {
 
     @Override
     public RealDigitSeries create(Double... digits) {
-        return create(digits == null ? new ArrayList<>() : Arrays.asList(digits));
+        if (digits == null) {
+            return new RealDigitSeriesImpl();
+        }
+        double[] elements = new double[digits.length];
+        for (int i = 0; i < digits.length; i++) {
+            elements[i] = RealDigitSeriesImpl.unbox(digits[i]);
+        }
+        return new RealDigitSeriesImpl(elements, elements.length);
+    }
+
+    public RealDigitSeries createFromDoubles(double... digits) {
+        return digits == null ? new RealDigitSeriesImpl() : new RealDigitSeriesImpl(digits.clone(), digits.length);
+    }
+
+    public RealDigitSeries create(DoubleStream digits) {
+        return digits.collect(RealDigitSeriesImpl::new, RealDigitSeriesImpl::addDouble, RealDigitSeriesImpl::addAll);
     }
 
+    public Collector<Double, ?, RealDigitSeries> collector() {
+        return Collector.<Double, RealDigitSeries> of(RealDigitSeriesImpl::new, RealDigitSeries::add, (left, right) -> {
+            left.addAll(right);
+            return left;
+        });
+    }
+
+    /**
+     * JSON arrays are decoded in a single pass straight into the series;
+     * any other content goes through the configured strings function.
+     */
     @Override
     public RealDigitSeries fromJson(String json) {
-        Stream<String> strings = fromJsonToStringsFunction.apply(json);
-        return strings == null ? null : create(strings.map(Double::new).toArray(Double[]::new));
+        if (JsonArrays.isNull(json)) {
+            return null;
+        }
+        try(JsonReader jsonReader = JsonArrays.beginArray(json)) {
+            if (jsonReader == null) {
+                return fromStrings(fromJsonToStringsFunction.apply(json));
+            }
+            RealDigitSeriesImpl realDigitSeries = new RealDigitSeriesImpl(new double[16], 0);
+            while (jsonReader.hasNext()) {
+                realDigitSeries.addDouble(JsonArrays.nextDouble(jsonReader));
+            }
+            JsonArrays.endArray(jsonReader);
+            return realDigitSeries;
+        }
+        catch (IOException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    private RealDigitSeries fromStrings(Stream<String> strings) {
+        if (strings == null) {
+            return null;
+        }
+        double[] elements = strings.mapToDouble(Double::parseDouble).toArray();
+        return new RealDigitSeriesImpl(elements, elements.length);
     }
 }
@@ -16,41 +16,148 @@
 
 package com.metaring.framework;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.DoubleSummaryStatistics;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Predicate;
 import java.util.function.UnaryOperator;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.stream.DoubleStream;
 
 import org.apache.calcite.linq4j.Enumerable;
 import org.apache.calcite.linq4j.Linq4j;
 
 import com.metaring.framework.type.series.RealDigitSeries;
 
-final class RealDigitSeriesImpl extends ArrayList<Double> implements RealDigitSeries {
+/**
+ * Keeps its items in a growable double[] rather than as boxed Doubles, so it
+ * takes 8 bytes per item instead of a reference plus a 16 bytes Double. The
+ * *Double methods and the numeric kernels never box; boxing only happens at
+ * the List&lt;Double&gt; boundary. Null items are rejected. Slices and views
+ * share the array copy-on-write, see ArraySeries.
+ */
+final class RealDigitSeriesImpl extends ArraySeries<Double, double[]> implements RealDigitSeries {
+
+    // Changed on purpose along with the serial form, which went from the
+    // ArrayList fields to size plus the raw items: streams of the old form are
+    // rejected with an InvalidClassException instead of being misread.
+    private static final long serialVersionUID = -2361779046235193615L;
+    private static final double[] EMPTY = {};
 
-    private static final long serialVersionUID = -33436455728516508L;
-    private Enumerable<Double> internalEnumerable;
+    private transient Enumerable<Double> internalEnumerable;
+
+    RealDigitSeriesImpl() {
+        this(EMPTY, 0);
+    }
 
     RealDigitSeriesImpl(Iterable<Double> iterable) {
-        super();
-        this.addAll(StreamSupport.stream(iterable.spliterator(), false).collect(Collectors.toList()));
+        this(EMPTY, 0);
+        if (iterable instanceof Collection) {
+            addAll((Collection<Double>) iterable);
+        }
+        else {
+            for (Double value : iterable) {
+                add(value);
+            }
+        }
+    }
+
+    /**
+     * Takes ownership of the given array, whose first size items become the
+     * content of the series.
+     */
+    RealDigitSeriesImpl(double[] elements, int size) {
+        super(elements, 0, size, false, false);
+    }
+
+    private RealDigitSeriesImpl(double[] elements, int offset, int size, boolean readOnly) {
+        super(elements, offset, size, true, readOnly);
+    }
+
+    @Override
+    double[] newArray(int length) {
+        return length == 0 ? EMPTY : new double[length];
+    }
+
+    @Override
+    int length(double[] array) {
+        return array.length;
     }
 
     @Override
     public String toJson() {
-        StringBuilder sb = new StringBuilder("[");
-        forEach(it -> sb.append(it.toString()).append(","));
-        return sb.delete(sb.length() - 1, sb.length()).append("]").toString();
+        StringBuilder sb = new StringBuilder(2 + size * 8);
+        try {
+            writeTo(sb);
+        }
+        catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return sb.toString();
+    }
+
+    public void writeTo(Appendable appendable) throws IOException {
+        appendable.append('[');
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                appendable.append(',');
+            }
+            JsonStreams.writeDouble(appendable, elements[offset + i]);
+        }
+        appendable.append(']');
+    }
+
+    public void writeTo(OutputStream outputStream) throws IOException {
+        Writer writer = JsonStreams.newWriter(outputStream);
+        writeTo(writer);
+        writer.flush();
+    }
+
+    public void writeTo(ByteBuffer byteBuffer) throws IOException {
+        writeTo(JsonStreams.asOutputStream(byteBuffer));
     }
 
     @Override
     public Double[] toArray() {
-        return this.toArray(new Double[this.size()]);
+        Double[] array = new Double[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = elements[offset + i];
+        }
+        return array;
+    }
+
+    public double[] toDoubleArray() {
+        return Arrays.copyOfRange(elements, offset, offset + size);
+    }
+
+    public DoubleStream doubleStream() {
+        return Arrays.stream(elements, offset, offset + size);
     }
 
+    /**
+     * Splits the backing array directly, so stream() and parallelStream()
+     * are sized and divide evenly instead of walking the iterator.
+     */
+    @Override
+    public Spliterator<Double> spliterator() {
+        return Spliterators.spliterator(elements, offset, offset + size, Spliterator.ORDERED);
+    }
+
+    /**
+     * Linq4j enumerates the list itself, so the same instance stays valid
+     * across mutations.
+     */
     @Override
     public Enumerable<Double> asEnumerable() {
         return internalEnumerable != null ? internalEnumerable : (internalEnumerable = Linq4j.asEnumerable(this));
@@ -77,96 +184,600 @@ final class RealDigitSeriesImpl extends ArrayList<Double> implements RealDigitSe
     }
 
     @Override
-    public boolean addAll(Double[] Doubles) {
-        return Doubles == null ? false : this.addAll(Arrays.asList(Doubles));
+    public boolean addAll(Double[] doubles) {
+        return doubles == null ? false : this.addAll(Arrays.asList(doubles));
     }
 
     @Override
-    public boolean containsAll(Double[] Doubles) {
-        return Doubles == null ? false : this.containsAll(Arrays.asList(Doubles));
+    public boolean containsAll(Double[] doubles) {
+        return doubles == null ? false : this.containsAll(Arrays.asList(doubles));
     }
 
     @Override
-    public boolean removeAll(Double[] Doubles) {
-        return Doubles == null ? false : this.removeAll(Arrays.asList(Doubles));
+    public boolean removeAll(Double[] doubles) {
+        return doubles == null ? false : this.removeAll(Arrays.asList(doubles));
     }
 
     @Override
-    public boolean retainAll(Double[] Doubles) {
-        return Doubles == null ? false : this.retainAll(Arrays.asList(Doubles));
+    public boolean retainAll(Double[] doubles) {
+        return doubles == null ? false : this.retainAll(Arrays.asList(doubles));
+    }
+
+    public boolean addDoubles(double... doubles) {
+        beforeChange();
+        if (doubles == null || doubles.length == 0) {
+            return false;
+        }
+        ensureCapacity(size + doubles.length);
+        System.arraycopy(doubles, 0, elements, size, doubles.length);
+        size += doubles.length;
+        modCount++;
+        return true;
+    }
+
+    public double getDouble(int index) {
+        checkIndex(index);
+        return elements[offset + index];
+    }
+
+    public double setDouble(int index, double value) {
+        beforeChange();
+        checkIndex(index);
+        double previous = elements[index];
+        elements[index] = value;
+        return previous;
+    }
+
+    public void addDouble(double value) {
+        beforeChange();
+        ensureCapacity(size + 1);
+        elements[size++] = value;
+        modCount++;
+    }
+
+    public void forEachDouble(DoubleConsumer action) {
+        int expectedModCount = modCount;
+        for (int i = 0; i < size && modCount == expectedModCount; i++) {
+            action.accept(elements[offset + i]);
+        }
+        checkForComodification(expectedModCount);
+    }
+
+    public boolean removeIfDouble(DoublePredicate filter) {
+        beforeChange();
+        int oldSize = size;
+        int kept = 0;
+        int i = 0;
+        try {
+            for (; i < oldSize; i++) {
+                double value = elements[i];
+                if (!filter.test(value)) {
+                    elements[kept++] = value;
+                }
+            }
+        }
+        finally {
+            if (i < oldSize) {
+                System.arraycopy(elements, i, elements, kept, oldSize - i);
+                kept += oldSize - i;
+            }
+            if (kept != oldSize) {
+                size = kept;
+                modCount++;
+            }
+        }
+        return kept != oldSize;
+    }
+
+    public void replaceAllDoubles(DoubleUnaryOperator operator) {
+        beforeChange();
+        for (int i = 0; i < size; i++) {
+            elements[i] = operator.applyAsDouble(elements[i]);
+        }
+        modCount++;
+    }
+
+    /**
+     * Matches the way Double.equals compares, as List.indexOf does: NaN is
+     * found and 0.0 is not -0.0.
+     */
+    public int indexOfDouble(double value) {
+        long bits = Double.doubleToLongBits(value);
+        for (int i = 0; i < size; i++) {
+            if (Double.doubleToLongBits(elements[offset + i]) == bits) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int lastIndexOfDouble(double value) {
+        long bits = Double.doubleToLongBits(value);
+        for (int i = size - 1; i >= 0; i--) {
+            if (Double.doubleToLongBits(elements[offset + i]) == bits) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean containsDouble(double value) {
+        return indexOfDouble(value) >= 0;
+    }
+
+    /**
+     * Sums into four independent accumulators combined in a fixed order, so
+     * the loop is not bound by the latency of a single floating point addition
+     * chain. Large series are summed across the common fork-join pool in a
+     * fixed shape (see SeriesAggregations): the result is deterministic for a
+     * given content either way.
+     */
+    public double sum() {
+        double[] elements = this.elements;
+        return SeriesAggregations.reduce(offset, offset + size, (from, to) -> sum(elements, from, to), Double::sum);
+    }
+
+    /**
+     * NaN when the series is empty.
+     */
+    public double mean() {
+        return size == 0 ? Double.NaN : sum() / size;
+    }
+
+    /**
+     * NaN when the series is empty or contains NaN.
+     */
+    public double min() {
+        if (size == 0) {
+            return Double.NaN;
+        }
+        double[] elements = this.elements;
+        return SeriesAggregations.reduce(offset, offset + size, (from, to) -> {
+            double min = elements[from];
+            for (int i = from + 1; i < to; i++) {
+                min = Math.min(min, elements[i]);
+            }
+            return min;
+        }, Math::min);
+    }
+
+    /**
+     * NaN when the series is empty or contains NaN.
+     */
+    public double max() {
+        if (size == 0) {
+            return Double.NaN;
+        }
+        double[] elements = this.elements;
+        return SeriesAggregations.reduce(offset, offset + size, (from, to) -> {
+            double max = elements[from];
+            for (int i = from + 1; i < to; i++) {
+                max = Math.max(max, elements[i]);
+            }
+            return max;
+        }, Math::max);
+    }
+
+    /**
+     * Population variance computed in two passes around the mean, which keeps
+     * its precision on large values with a small spread. NaN when empty.
+     */
+    public double variance() {
+        if (size == 0) {
+            return Double.NaN;
+        }
+        double[] elements = this.elements;
+        double mean = sum() / size;
+        return SeriesAggregations.reduce(offset, offset + size, (from, to) -> {
+            double s0 = 0d;
+            double s1 = 0d;
+            int i = from;
+            for (; i + 1 < to; i += 2) {
+                double d0 = elements[i] - mean;
+                double d1 = elements[i + 1] - mean;
+                s0 += d0 * d0;
+                s1 += d1 * d1;
+            }
+            for (; i < to; i++) {
+                double d = elements[i] - mean;
+                s0 += d * d;
+            }
+            return s0 + s1;
+        }, Double::sum) / size;
+    }
+
+    /**
+     * The predicate may be called from several threads at once.
+     */
+    public int count(DoublePredicate predicate) {
+        double[] elements = this.elements;
+        return SeriesAggregations.reduce(offset, offset + size, (from, to) -> {
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                if (predicate.test(elements[i])) {
+                    count++;
+                }
+            }
+            return count;
+        }, Integer::sum);
+    }
+
+    /**
+     * Counts the items between min and max (both inclusive) into bins of equal
+     * width, max falling into the last one; items outside the range and NaN
+     * are not counted.
+     */
+    public long[] histogram(double min, double max, int bins) {
+        SeriesAggregations.checkBins(bins);
+        if (!(min < max) || Double.isInfinite(max - min)) {
+            throw new IllegalArgumentException("Min: " + min + ", Max: " + max);
+        }
+        double width = (max - min) / bins;
+        double[] elements = this.elements;
+        return SeriesAggregations.reduce(offset, offset + size, (from, to) -> {
+            long[] counts = new long[bins];
+            for (int i = from; i < to; i++) {
+                double value = elements[i];
+                if (value >= min && value <= max) {
+                    counts[Math.min((int) ((value - min) / width), bins - 1)]++;
+                }
+            }
+            return counts;
+        }, SeriesAggregations::addCounts);
+    }
+
+    /**
+     * Combined in the same fixed shape as sum(), so its sum and average are
+     * deterministic too.
+     */
+    public DoubleSummaryStatistics statistics() {
+        double[] elements = this.elements;
+        return SeriesAggregations.reduce(offset, offset + size, (from, to) -> {
+            DoubleSummaryStatistics statistics = new DoubleSummaryStatistics();
+            for (int i = from; i < to; i++) {
+                statistics.accept(elements[i]);
+            }
+            return statistics;
+        }, (left, right) -> {
+            left.combine(right);
+            return left;
+        });
+    }
+
+    public double dot(RealDigitSeriesImpl other) {
+        checkSameSize(other);
+        double[] left = this.elements;
+        double[] right = other.elements;
+        int leftOffset = this.offset;
+        int rightOffset = other.offset;
+        int size = this.size;
+        double s0 = 0d;
+        double s1 = 0d;
+        double s2 = 0d;
+        double s3 = 0d;
+        int i = 0;
+        for (; i + 3 < size; i += 4) {
+            s0 += left[leftOffset + i] * right[rightOffset + i];
+            s1 += left[leftOffset + i + 1] * right[rightOffset + i + 1];
+            s2 += left[leftOffset + i + 2] * right[rightOffset + i + 2];
+            s3 += left[leftOffset + i + 3] * right[rightOffset + i + 3];
+        }
+        for (; i < size; i++) {
+            s0 += left[leftOffset + i] * right[rightOffset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Multiplies every item in place.
+     */
+    public RealDigitSeriesImpl scale(double factor) {
+        beforeChange();
+        double[] elements = this.elements;
+        int size = this.size;
+        for (int i = 0; i < size; i++) {
+            elements[i] *= factor;
+        }
+        return this;
     }
 
-    private void recreateEnumerable() {
-        if (internalEnumerable != null) {
-            internalEnumerable = Linq4j.asEnumerable(this);
+    /**
+     * Adds each item of the other series to the item at the same position of
+     * this one, in place.
+     */
+    public RealDigitSeriesImpl addElementWise(RealDigitSeriesImpl other) {
+        checkSameSize(other);
+        beforeChange();
+        double[] left = this.elements;
+        double[] right = other.elements;
+        int rightOffset = other.offset;
+        int size = this.size;
+        for (int i = 0; i < size; i++) {
+            left[i] += right[rightOffset + i];
         }
+        return this;
+    }
+
+    /**
+     * Items from (inclusive) to to (exclusive) as a series sharing this one's
+     * array: nothing is copied unless one of the two is modified later.
+     */
+    public RealDigitSeriesImpl slice(int from, int to) {
+        checkSlice(from, to);
+        return new RealDigitSeriesImpl(share(), offset + from, to - from, readOnly);
+    }
+
+    /**
+     * A snapshot of the current items that rejects any modification, sharing
+     * this series' array until this series is modified.
+     */
+    public RealDigitSeriesImpl readOnlyView() {
+        return new RealDigitSeriesImpl(share(), offset, size, true);
+    }
+
+    /**
+     * A new series with the items of this one followed by those of the
+     * others, filled with a single presized copy.
+     */
+    public RealDigitSeriesImpl concat(RealDigitSeries... others) {
+        int total = size;
+        for (RealDigitSeries other : others) {
+            total += other.size();
+        }
+        double[] result = Arrays.copyOfRange(elements, offset, offset + total);
+        int position = size;
+        for (RealDigitSeries other : others) {
+            if (other instanceof RealDigitSeriesImpl) {
+                RealDigitSeriesImpl series = (RealDigitSeriesImpl) other;
+                System.arraycopy(series.elements, series.offset, result, position, series.size);
+                position += series.size;
+            }
+            else {
+                for (Double value : other) {
+                    result[position++] = value;
+                }
+            }
+        }
+        return new RealDigitSeriesImpl(result, position);
+    }
+
+    @Override
+    public Double get(int index) {
+        return getDouble(index);
+    }
+
+    @Override
+    public Double set(int index, Double element) {
+        return setDouble(index, unbox(element));
     }
 
     @Override
     public boolean add(Double e) {
-        boolean test = super.add(e);
-        recreateEnumerable();
-        return test;
+        addDouble(unbox(e));
+        return true;
     }
 
     @Override
     public void add(int index, Double element) {
-        super.add(index, element);
-        recreateEnumerable();
+        beforeChange();
+        double value = unbox(element);
+        insertRoom(index, 1);
+        elements[index] = value;
     }
 
     @Override
     public boolean addAll(Collection<? extends Double> c) {
-        boolean test = super.addAll(c);
-        recreateEnumerable();
-        return test;
+        return addAll(size, c);
     }
 
     @Override
     public boolean addAll(int index, Collection<? extends Double> c) {
-        boolean test = super.addAll(index, c);
-        recreateEnumerable();
-        return test;
+        beforeChange();
+        checkPositionIndex(index);
+        int count = c.size();
+        if (count == 0) {
+            return false;
+        }
+        ensureCapacity(size + count);
+        if (c instanceof RealDigitSeriesImpl) {
+            RealDigitSeriesImpl other = (RealDigitSeriesImpl) c;
+            double[] source = other == this ? Arrays.copyOf(elements, count) : other.elements;
+            int sourceOffset = other == this ? 0 : other.offset;
+            System.arraycopy(elements, index, elements, index + count, size - index);
+            System.arraycopy(source, sourceOffset, elements, index, count);
+        }
+        else if (index == size) {
+            int i = size;
+            for (Double value : c) {
+                elements[i++] = unbox(value);
+            }
+            count = i - size;
+        }
+        else {
+            double[] values = new double[count];
+            int i = 0;
+            for (Double value : c) {
+                values[i++] = unbox(value);
+            }
+            System.arraycopy(elements, index, elements, index + count, size - index);
+            System.arraycopy(values, 0, elements, index, count);
+        }
+        size += count;
+        modCount++;
+        return true;
     }
 
     @Override
-    public boolean remove(Object o) {
-        boolean test = super.remove(o);
-        recreateEnumerable();
-        return test;
+    public Double remove(int index) {
+        beforeChange();
+        double previous = getDouble(index);
+        removeAt(index);
+        return previous;
     }
 
     @Override
-    public Double remove(int index) {
-        Double test = super.remove(index);
-        recreateEnumerable();
-        return test;
+    public boolean remove(Object o) {
+        int index = indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
     }
 
     @Override
     public boolean removeAll(Collection<?> c) {
-        boolean test = super.removeAll(c);
-        recreateEnumerable();
-        return test;
+        if (SeriesSets.canSortKeys(c)) {
+            long[] keys = SeriesSets.sortedDoubleBits(c);
+            return removeIfDouble(value -> SeriesSets.contains(keys, Double.doubleToLongBits(value)));
+        }
+        return removeIfDouble(value -> c.contains(value));
     }
 
     @Override
-    public boolean removeIf(Predicate<? super Double> filter) {
-        boolean test = super.removeIf(filter);
-        recreateEnumerable();
-        return test;
+    public boolean retainAll(Collection<?> c) {
+        if (SeriesSets.canSortKeys(c)) {
+            long[] keys = SeriesSets.sortedDoubleBits(c);
+            return removeIfDouble(value -> !SeriesSets.contains(keys, Double.doubleToLongBits(value)));
+        }
+        return removeIfDouble(value -> !c.contains(value));
     }
 
+    /**
+     * Large arguments are checked by binary search over the sorted bits of
+     * the items instead of a scan per argument.
+     */
     @Override
-    public boolean retainAll(Collection<?> c) {
-        boolean test = super.retainAll(c);
-        recreateEnumerable();
-        return test;
+    public boolean containsAll(Collection<?> c) {
+        if (!SeriesSets.isLarge(c) || size <= SeriesSets.THRESHOLD) {
+            return super.containsAll(c);
+        }
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = Double.doubleToLongBits(elements[offset + i]);
+        }
+        Arrays.sort(keys);
+        for (Object o : c) {
+            if (!(o instanceof Double) || !SeriesSets.contains(keys, Double.doubleToLongBits((Double) o))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Double> filter) {
+        return removeIfDouble(filter::test);
     }
 
     @Override
     public void replaceAll(UnaryOperator<Double> operator) {
-        super.replaceAll(operator);
-        recreateEnumerable();
+        replaceAllDoubles(value -> operator.apply(value));
+    }
+
+    @Override
+    public void sort(Comparator<? super Double> c) {
+        beforeChange();
+        if (c == null || c == Comparator.naturalOrder()) {
+            Arrays.sort(elements, 0, size);
+            modCount++;
+        }
+        else {
+            super.sort(c);
+        }
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return o instanceof Double ? indexOfDouble((Double) o) : -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return o instanceof Double ? lastIndexOfDouble((Double) o) : -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof RealDigitSeriesImpl)) {
+            return super.equals(o);
+        }
+        RealDigitSeriesImpl other = (RealDigitSeriesImpl) o;
+        if (other.size != size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (Double.doubleToLongBits(elements[offset + i]) != Double.doubleToLongBits(other.elements[other.offset + i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 1;
+        for (int i = 0; i < size; i++) {
+            hashCode = 31 * hashCode + Double.hashCode(elements[offset + i]);
+        }
+        return hashCode;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        for (int i = 0; i < size; i++) {
+            out.writeDouble(elements[offset + i]);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        elements = size == 0 ? EMPTY : new double[size];
+        for (int i = 0; i < size; i++) {
+            elements[i] = in.readDouble();
+        }
+    }
+
+    private static double sum(double[] elements, int from, int to) {
+        double s0 = 0d;
+        double s1 = 0d;
+        double s2 = 0d;
+        double s3 = 0d;
+        int i = from;
+        for (; i + 3 < to; i += 4) {
+            s0 += elements[i];
+            s1 += elements[i + 1];
+            s2 += elements[i + 2];
+            s3 += elements[i + 3];
+        }
+        for (; i < to; i++) {
+            s0 += elements[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Being primitive-backed, the series cannot hold null: it is rejected with
+     * a NullPointerException naming the series type rather than by unboxing.
+     */
+    static double unbox(Double item) {
+        if (item == null) {
+            throw new NullPointerException("A RealDigitSeries cannot hold null items");
+        }
+        return item;
+    }
+
+    private void checkSameSize(RealDigitSeriesImpl other) {
+        if (other.size != size) {
+            throw new IllegalArgumentException("Size mismatch: " + size + " != " + other.size);
+        }
     }
 }
@@ -0,0 +1,509 @@
+/**
+ *    Copyright 2019 MetaRing s.r.l.
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.metaring.framework;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.DoubleSummaryStatistics;
+import java.util.LongSummaryStatistics;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.Collector;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import com.metaring.framework.type.Email;
+import com.metaring.framework.type.series.DigitSeries;
+import com.metaring.framework.type.series.EmailSeries;
+import com.metaring.framework.type.series.RealDigitSeries;
+import com.metaring.framework.type.series.TextSeries;
+import com.metaring.framework.type.series.TruthSeries;
+
+/**
+ * Primitive access, numeric kernels, slices, views and builders for callers
+ * that only hold the series interfaces. Series of this package are used
+ * directly, so nothing is boxed or copied; any other implementation is read
+ * through its List methods, and copied first by the operations that need the
+ * primitive storage, so its slices and views do not follow later changes.
+ * Primitive series hold no null items.
+ */
+public final class Series {
+
+    private static final DigitSeriesFactoryImpl DIGIT_SERIES_FACTORY = new DigitSeriesFactoryImpl(DataRepresentationImpl::getStrings);
+    private static final RealDigitSeriesFactoryImpl REAL_DIGIT_SERIES_FACTORY = new RealDigitSeriesFactoryImpl(DataRepresentationImpl::getStrings);
+    private static final TruthSeriesFactoryImpl TRUTH_SERIES_FACTORY = new TruthSeriesFactoryImpl(DataRepresentationImpl::getStrings);
+    private static final TextSeriesFactoryImpl TEXT_SERIES_FACTORY = new TextSeriesFactoryImpl(DataRepresentationImpl::getStrings);
+
+    private Series() {
+    }
+
+    public static final DigitSeries digitSeries(long... digits) {
+        return DIGIT_SERIES_FACTORY.createFromLongs(digits);
+    }
+
+    public static final DigitSeries digitSeries(LongStream digits) {
+        return DIGIT_SERIES_FACTORY.create(digits);
+    }
+
+    public static final Collector<Long, ?, DigitSeries> toDigitSeries() {
+        return DIGIT_SERIES_FACTORY.collector();
+    }
+
+    public static final long[] toLongArray(DigitSeries series) {
+        return digits(series).toLongArray();
+    }
+
+    public static final LongStream longStream(DigitSeries series) {
+        return series instanceof DigitSeriesImpl ? ((DigitSeriesImpl) series).longStream() : series.stream().mapToLong(Long::longValue);
+    }
+
+    public static final long getLong(DigitSeries series, int index) {
+        return series instanceof DigitSeriesImpl ? ((DigitSeriesImpl) series).getLong(index) : series.get(index);
+    }
+
+    public static final long setLong(DigitSeries series, int index, long value) {
+        return series instanceof DigitSeriesImpl ? ((DigitSeriesImpl) series).setLong(index, value) : series.set(index, value);
+    }
+
+    public static final void addLong(DigitSeries series, long value) {
+        if (series instanceof DigitSeriesImpl) {
+            ((DigitSeriesImpl) series).addLong(value);
+            return;
+        }
+        series.add(value);
+    }
+
+    public static final boolean addLongs(DigitSeries series, long... values) {
+        if (series instanceof DigitSeriesImpl) {
+            return ((DigitSeriesImpl) series).addLongs(values);
+        }
+        for (long value : values) {
+            series.add(value);
+        }
+        return values.length > 0;
+    }
+
+    public static final void forEachLong(DigitSeries series, LongConsumer action) {
+        if (series instanceof DigitSeriesImpl) {
+            ((DigitSeriesImpl) series).forEachLong(action);
+            return;
+        }
+        for (Long value : series) {
+            action.accept(value);
+        }
+    }
+
+    public static final boolean removeIfLong(DigitSeries series, LongPredicate filter) {
+        return series instanceof DigitSeriesImpl ? ((DigitSeriesImpl) series).removeIfLong(filter) : series.removeIf(value -> filter.test(value));
+    }
+
+    public static final void replaceAllLongs(DigitSeries series, LongUnaryOperator operator) {
+        if (series instanceof DigitSeriesImpl) {
+            ((DigitSeriesImpl) series).replaceAllLongs(operator);
+            return;
+        }
+        series.replaceAll(value -> operator.applyAsLong(value));
+    }
+
+    public static final int indexOfLong(DigitSeries series, long value) {
+        return series instanceof DigitSeriesImpl ? ((DigitSeriesImpl) series).indexOfLong(value) : series.indexOf(value);
+    }
+
+    public static final int lastIndexOfLong(DigitSeries series, long value) {
+        return series instanceof DigitSeriesImpl ? ((DigitSeriesImpl) series).lastIndexOfLong(value) : series.lastIndexOf(value);
+    }
+
+    public static final boolean containsLong(DigitSeries series, long value) {
+        return series instanceof DigitSeriesImpl ? ((DigitSeriesImpl) series).containsLong(value) : series.contains(value);
+    }
+
+    public static final long sum(DigitSeries series) {
+        return digits(series).sum();
+    }
+
+    public static final long min(DigitSeries series) {
+        return digits(series).min();
+    }
+
+    public static final long max(DigitSeries series) {
+        return digits(series).max();
+    }
+
+    public static final int count(DigitSeries series, LongPredicate predicate) {
+        return digits(series).count(predicate);
+    }
+
+    public static final long[] histogram(DigitSeries series, long min, long max, int bins) {
+        return digits(series).histogram(min, max, bins);
+    }
+
+    public static final LongSummaryStatistics statistics(DigitSeries series) {
+        return digits(series).statistics();
+    }
+
+    public static final DigitSeries slice(DigitSeries series, int from, int to) {
+        return digits(series).slice(from, to);
+    }
+
+    public static final DigitSeries readOnlyView(DigitSeries series) {
+        return digits(series).readOnlyView();
+    }
+
+    public static final DigitSeries concat(DigitSeries series, DigitSeries... others) {
+        return digits(series).concat(others);
+    }
+
+    public static final RealDigitSeries realDigitSeries(double... digits) {
+        return REAL_DIGIT_SERIES_FACTORY.createFromDoubles(digits);
+    }
+
+    public static final RealDigitSeries realDigitSeries(DoubleStream digits) {
+        return REAL_DIGIT_SERIES_FACTORY.create(digits);
+    }
+
+    public static final Collector<Double, ?, RealDigitSeries> toRealDigitSeries() {
+        return REAL_DIGIT_SERIES_FACTORY.collector();
+    }
+
+    public static final double[] toDoubleArray(RealDigitSeries series) {
+        return realDigits(series).toDoubleArray();
+    }
+
+    public static final DoubleStream doubleStream(RealDigitSeries series) {
+        return series instanceof RealDigitSeriesImpl ? ((RealDigitSeriesImpl) series).doubleStream() : series.stream().mapToDouble(Double::doubleValue);
+    }
+
+    public static final double getDouble(RealDigitSeries series, int index) {
+        return series instanceof RealDigitSeriesImpl ? ((RealDigitSeriesImpl) series).getDouble(index) : series.get(index);
+    }
+
+    public static final double setDouble(RealDigitSeries series, int index, double value) {
+        return series instanceof RealDigitSeriesImpl ? ((RealDigitSeriesImpl) series).setDouble(index, value) : series.set(index, value);
+    }
+
+    public static final void addDouble(RealDigitSeries series, double value) {
+        if (series instanceof RealDigitSeriesImpl) {
+            ((RealDigitSeriesImpl) series).addDouble(value);
+            return;
+        }
+        series.add(value);
+    }
+
+    public static final boolean addDoubles(RealDigitSeries series, double... values) {
+        if (series instanceof RealDigitSeriesImpl) {
+            return ((RealDigitSeriesImpl) series).addDoubles(values);
+        }
+        for (double value : values) {
+            series.add(value);
+        }
+        return values.length > 0;
+    }
+
+    public static final void forEachDouble(RealDigitSeries series, DoubleConsumer action) {
+        if (series instanceof RealDigitSeriesImpl) {
+            ((RealDigitSeriesImpl) series).forEachDouble(action);
+            return;
+        }
+        for (Double value : series) {
+            action.accept(value);
+        }
+    }
+
+    public static final boolean removeIfDouble(RealDigitSeries series, DoublePredicate filter) {
+        return series instanceof RealDigitSeriesImpl ? ((RealDigitSeriesImpl) series).removeIfDouble(filter) : series.removeIf(value -> filter.test(value));
+    }
+
+    public static final void replaceAllDoubles(RealDigitSeries series, DoubleUnaryOperator operator) {
+        if (series instanceof RealDigitSeriesImpl) {
+            ((RealDigitSeriesImpl) series).replaceAllDoubles(operator);
+            return;
+        }
+        series.replaceAll(value -> operator.applyAsDouble(value));
+    }
+
+    public static final int indexOfDouble(RealDigitSeries series, double value) {
+        return series instanceof RealDigitSeriesImpl ? ((RealDigitSeriesImpl) series).indexOfDouble(value) : series.indexOf(value);
+    }
+
+    public static final int lastIndexOfDouble(RealDigitSeries series, double value) {
+        return series instanceof RealDigitSeriesImpl ? ((RealDigitSeriesImpl) series).lastIndexOfDouble(value) : series.lastIndexOf(value);
+    }
+
+    public static final boolean containsDouble(RealDigitSeries series, double value) {
+        return series instanceof RealDigitSeriesImpl ? ((RealDigitSeriesImpl) series).containsDouble(value) : series.contains(value);
+    }
+
+    public static final double sum(RealDigitSeries series) {
+        return realDigits(series).sum();
+    }
+
+    public static final double mean(RealDigitSeries series) {
+        return realDigits(series).mean();
+    }
+
+    public static final double min(RealDigitSeries series) {
+        return realDigits(series).min();
+    }
+
+    public static final double max(RealDigitSeries series) {
+        return realDigits(series).max();
+    }
+
+    public static final double variance(RealDigitSeries series) {
+        return realDigits(series).variance();
+    }
+
+    public static final int count(RealDigitSeries series, DoublePredicate predicate) {
+        return realDigits(series).count(predicate);
+    }
+
+    public static final long[] histogram(RealDigitSeries series, double min, double max, int bins) {
+        return realDigits(series).histogram(min, max, bins);
+    }
+
+    public static final DoubleSummaryStatistics statistics(RealDigitSeries series) {
+        return realDigits(series).statistics();
+    }
+
+    public static final double dot(RealDigitSeries series, RealDigitSeries other) {
+        return realDigits(series).dot(realDigits(other));
+    }
+
+    public static final RealDigitSeries scale(RealDigitSeries series, double factor) {
+        return realDigits(series).scale(factor);
+    }
+
+    public static final RealDigitSeries addElementWise(RealDigitSeries series, RealDigitSeries other) {
+        return realDigits(series).addElementWise(realDigits(other));
+    }
+
+    public static final RealDigitSeries slice(RealDigitSeries series, int from, int to) {
+        return realDigits(series).slice(from, to);
+    }
+
+    public static final RealDigitSeries readOnlyView(RealDigitSeries series) {
+        return realDigits(series).readOnlyView();
+    }
+
+    public static final RealDigitSeries concat(RealDigitSeries series, RealDigitSeries... others) {
+        return realDigits(series).concat(others);
+    }
+
+    public static final TruthSeries truthSeries(boolean... values) {
+        return TRUTH_SERIES_FACTORY.createFromBooleans(values);
+    }
+
+    public static final Collector<Boolean, ?, TruthSeries> toTruthSeries() {
+        return TRUTH_SERIES_FACTORY.collector();
+    }
+
+    public static final boolean[] toBooleanArray(TruthSeries series) {
+        return truths(series).toBooleanArray();
+    }
+
+    public static final boolean getTruth(TruthSeries series, int index) {
+        return series instanceof TruthSeriesImpl ? ((TruthSeriesImpl) series).getTruth(index) : series.get(index);
+    }
+
+    public static final boolean setTruth(TruthSeries series, int index, boolean value) {
+        return series instanceof TruthSeriesImpl ? ((TruthSeriesImpl) series).setTruth(index, value) : series.set(index, value);
+    }
+
+    public static final void addTruth(TruthSeries series, boolean value) {
+        if (series instanceof TruthSeriesImpl) {
+            ((TruthSeriesImpl) series).addTruth(value);
+            return;
+        }
+        series.add(value);
+    }
+
+    /**
+     * Number of true items.
+     */
+    public static final int count(TruthSeries series) {
+        return truths(series).count();
+    }
+
+    public static final boolean anyTrue(TruthSeries series) {
+        return truths(series).anyTrue();
+    }
+
+    public static final boolean allTrue(TruthSeries series) {
+        return truths(series).allTrue();
+    }
+
+    public static final int next(TruthSeries series, boolean value, int from) {
+        return truths(series).next(value, from);
+    }
+
+    public static final IntStream trueIndices(TruthSeries series) {
+        return truths(series).trueIndices();
+    }
+
+    public static final TruthSeries and(TruthSeries series, TruthSeries other) {
+        return truths(series).and(truths(other));
+    }
+
+    public static final TruthSeries or(TruthSeries series, TruthSeries other) {
+        return truths(series).or(truths(other));
+    }
+
+    public static final TruthSeries xor(TruthSeries series, TruthSeries other) {
+        return truths(series).xor(truths(other));
+    }
+
+    public static final TruthSeries not(TruthSeries series) {
+        return truths(series).not();
+    }
+
+    public static final TruthSeries slice(TruthSeries series, int from, int to) {
+        return truths(series).slice(from, to);
+    }
+
+    public static final TruthSeries readOnlyView(TruthSeries series) {
+        return truths(series).readOnlyView();
+    }
+
+    public static final TruthSeries concat(TruthSeries series, TruthSeries... others) {
+        return truths(series).concat(others);
+    }
+
+    public static final Collector<String, ?, TextSeries> toTextSeries() {
+        return TEXT_SERIES_FACTORY.collector();
+    }
+
+    /**
+     * A series storing each distinct value once, for large series repeating a
+     * small set of values; utf8Arena keeps the distinct values as UTF-8 bytes
+     * instead of Strings.
+     */
+    public static final TextSeries dictionaryEncoded(Iterable<String> values, boolean utf8Arena) {
+        return TEXT_SERIES_FACTORY.createDictionaryEncoded(values, utf8Arena);
+    }
+
+    public static final Collector<String, ?, TextSeries> toDictionaryEncoded(boolean utf8Arena) {
+        return TEXT_SERIES_FACTORY.dictionaryEncodedCollector(utf8Arena);
+    }
+
+    public static final TextSeries slice(TextSeries series, int from, int to) {
+        if (series instanceof DictionaryTextSeriesImpl) {
+            return ((DictionaryTextSeriesImpl) series).slice(from, to);
+        }
+        return texts(series).slice(from, to);
+    }
+
+    public static final TextSeries readOnlyView(TextSeries series) {
+        if (series instanceof DictionaryTextSeriesImpl) {
+            return ((DictionaryTextSeriesImpl) series).readOnlyView();
+        }
+        return texts(series).readOnlyView();
+    }
+
+    public static final TextSeries concat(TextSeries series, TextSeries... others) {
+        if (series instanceof DictionaryTextSeriesImpl) {
+            return ((DictionaryTextSeriesImpl) series).concat(others);
+        }
+        return texts(series).concat(others);
+    }
+
+    public static final Collector<Email, ?, EmailSeries> toEmailSeries() {
+        return Collector.<Email, EmailSeries> of(EmailSeriesImpl::new, EmailSeries::add, (left, right) -> {
+            left.addAll(right);
+            return left;
+        });
+    }
+
+    public static final EmailSeries slice(EmailSeries series, int from, int to) {
+        return emails(series).slice(from, to);
+    }
+
+    public static final EmailSeries readOnlyView(EmailSeries series) {
+        return emails(series).readOnlyView();
+    }
+
+    public static final EmailSeries concat(EmailSeries series, EmailSeries... others) {
+        return emails(series).concat(others);
+    }
+
+    /**
+     * Writes the JSON of any series straight to the target, without building
+     * it as a String when the series is of this package.
+     */
+    public static final void writeTo(CoreType series, Appendable appendable) throws IOException {
+        if (series instanceof DigitSeriesImpl) {
+            ((DigitSeriesImpl) series).writeTo(appendable);
+        }
+        else if (series instanceof RealDigitSeriesImpl) {
+            ((RealDigitSeriesImpl) series).writeTo(appendable);
+        }
+        else if (series instanceof TruthSeriesImpl) {
+            ((TruthSeriesImpl) series).writeTo(appendable);
+        }
+        else if (series instanceof TextSeriesImpl) {
+            ((TextSeriesImpl) series).writeTo(appendable);
+        }
+        else if (series instanceof DictionaryTextSeriesImpl) {
+            ((DictionaryTextSeriesImpl) series).writeTo(appendable);
+        }
+        else if (series instanceof EmailSeriesImpl) {
+            ((EmailSeriesImpl) series).writeTo(appendable);
+        }
+        else {
+            appendable.append(series == null ? "null" : series.toJson());
+        }
+    }
+
+    /**
+     * Writes UTF-8; the stream is flushed but not closed.
+     */
+    public static final void writeTo(CoreType series, OutputStream outputStream) throws IOException {
+        Writer writer = JsonStreams.newWriter(outputStream);
+        writeTo(series, writer);
+        writer.flush();
+    }
+
+    public static final void writeTo(CoreType series, ByteBuffer byteBuffer) throws IOException {
+        writeTo(series, JsonStreams.asOutputStream(byteBuffer));
+    }
+
+    private static final DigitSeriesImpl digits(DigitSeries series) {
+        return series instanceof DigitSeriesImpl ? (DigitSeriesImpl) series : new DigitSeriesImpl(series);
+    }
+
+    private static final RealDigitSeriesImpl realDigits(RealDigitSeries series) {
+        return series instanceof RealDigitSeriesImpl ? (RealDigitSeriesImpl) series : new RealDigitSeriesImpl(series);
+    }
+
+    private static final TruthSeriesImpl truths(TruthSeries series) {
+        return series instanceof TruthSeriesImpl ? (TruthSeriesImpl) series : new TruthSeriesImpl(series);
+    }
+
+    private static final TextSeriesImpl texts(TextSeries series) {
+        return series instanceof TextSeriesImpl ? (TextSeriesImpl) series : new TextSeriesImpl(series);
+    }
+
+    private static final EmailSeriesImpl emails(EmailSeries series) {
+        return series instanceof EmailSeriesImpl ? (EmailSeriesImpl) series : new EmailSeriesImpl(series);
+    }
+}
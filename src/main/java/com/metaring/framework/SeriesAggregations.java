@@ -0,0 +1,98 @@
+/**
+ *    Copyright 2019 MetaRing s.r.l.
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.metaring.framework;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+/**
+ * Fork-join reduction over a range of a primitive series' backing array.
+ * Ranges shorter than PARALLEL_THRESHOLD are reduced sequentially in the
+ * calling thread. Longer ones are halved down to LEAF_SIZE items and the
+ * halves combined left to right, so the shape of the reduction depends only on
+ * the range and floating point results are the same on every run, whatever
+ * the number of cores or the scheduling.
+ */
+final class SeriesAggregations {
+
+    static final int PARALLEL_THRESHOLD = 1 << 17;
+    static final int LEAF_SIZE = 1 << 14;
+
+    private SeriesAggregations() {
+    }
+
+    /**
+     * Reduces the indexes from (inclusive) to to (exclusive) of a backing
+     * array; leaf is called on disjoint subranges, possibly from several
+     * threads at once.
+     */
+    static final <R> R reduce(int from, int to, RangeFunction<R> leaf, BinaryOperator<R> combiner) {
+        if (to - from < PARALLEL_THRESHOLD) {
+            return leaf.apply(from, to);
+        }
+        return ForkJoinPool.commonPool().invoke(new ReduceTask<>(from, to, leaf, combiner));
+    }
+
+    static final long[] addCounts(long[] left, long[] right) {
+        for (int i = 0; i < left.length; i++) {
+            left[i] += right[i];
+        }
+        return left;
+    }
+
+    static final void checkBins(int bins) {
+        if (bins < 1) {
+            throw new IllegalArgumentException("Bins: " + bins);
+        }
+    }
+
+    @FunctionalInterface
+    interface RangeFunction<R> {
+
+        R apply(int from, int to);
+    }
+
+    private static final class ReduceTask<R> extends RecursiveTask<R> {
+
+        private static final long serialVersionUID = 2786617437342917745L;
+
+        private final int from;
+        private final int to;
+        private final RangeFunction<R> leaf;
+        private final BinaryOperator<R> combiner;
+
+        ReduceTask(int from, int to, RangeFunction<R> leaf, BinaryOperator<R> combiner) {
+            this.from = from;
+            this.to = to;
+            this.leaf = leaf;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from <= LEAF_SIZE) {
+                return leaf.apply(from, to);
+            }
+            int middle = (from + to) >>> 1;
+            ReduceTask<R> left = new ReduceTask<>(from, middle, leaf, combiner);
+            left.fork();
+            R right = new ReduceTask<>(middle, to, leaf, combiner).compute();
+            return combiner.apply(left.join(), right);
+        }
+    }
+}
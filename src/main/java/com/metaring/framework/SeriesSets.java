@@ -0,0 +1,95 @@
+/**
+ *    Copyright 2019 MetaRing s.r.l.
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.metaring.framework;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SortedSet;
+
+/**
+ * Lookup structures used by the series bulk operations once the argument is
+ * too large for a linear contains per item.
+ */
+final class SeriesSets {
+
+    static final int THRESHOLD = 16;
+
+    private SeriesSets() {
+    }
+
+    static final boolean isLarge(Collection<?> c) {
+        return c.size() > THRESHOLD;
+    }
+
+    /**
+     * Sets keep their own membership semantics; any other large collection is
+     * copied into a HashSet.
+     */
+    static final Collection<?> forLookup(Collection<?> c) {
+        return !isLarge(c) || c instanceof Set ? c : new HashSet<>(c);
+    }
+
+    /**
+     * Primitive keys only replace collections whose contains is equals-based,
+     * which excludes sorted sets with a custom comparator.
+     */
+    static final boolean canSortKeys(Collection<?> c) {
+        return isLarge(c) && !(c instanceof SortedSet);
+    }
+
+    /**
+     * Sorted values of the Longs in the collection; other items can never
+     * match a long and are left out.
+     */
+    static final long[] sortedLongs(Collection<?> c) {
+        long[] keys = new long[c.size()];
+        int count = 0;
+        for (Object o : c) {
+            if (o instanceof Long) {
+                keys[count++] = (Long) o;
+            }
+        }
+        return sort(keys, count);
+    }
+
+    /**
+     * Sorted Double.doubleToLongBits of the Doubles in the collection, which
+     * is how Double.equals compares.
+     */
+    static final long[] sortedDoubleBits(Collection<?> c) {
+        long[] keys = new long[c.size()];
+        int count = 0;
+        for (Object o : c) {
+            if (o instanceof Double) {
+                keys[count++] = Double.doubleToLongBits((Double) o);
+            }
+        }
+        return sort(keys, count);
+    }
+
+    static final boolean contains(long[] sortedKeys, long key) {
+        return Arrays.binarySearch(sortedKeys, key) >= 0;
+    }
+
+    private static final long[] sort(long[] keys, int count) {
+        long[] sorted = count == keys.length ? keys : Arrays.copyOf(keys, count);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+}
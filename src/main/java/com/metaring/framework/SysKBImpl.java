@@ -16,6 +16,10 @@
 
 package com.metaring.framework;
 
+import java.util.function.Function;
+
+import com.google.gson.JsonElement;
+
 import com.metaring.framework.type.DataRepresentation;
 import com.metaring.framework.type.factory.DigitSeriesFactory;
 import com.metaring.framework.type.factory.EmailFactory;
@@ -30,6 +34,7 @@ import com.metaring.framework.util.log.LoggerFactory;
 
 final class SysKBImpl extends ImmutableDataRepresentation implements SysKB, SysKBFactory {
     private String filenameOrContent;
+    private Function<String, JsonElement> source;
     private final ExecutionEnvironmentProvider executionEnvironmentProvider;
     private final LoggerFactory loggerFactory;
     private String systemName;
@@ -65,7 +70,7 @@ final class SysKBImpl extends ImmutableDataRepresentation implements SysKB, SysK
     }
 
     public void reinit() {
-        reinit(filenameOrContent);
+        reload(source == null ? reinit(filenameOrContent) : source.apply(filenameOrContent));
         initProperties();
     }
 
@@ -92,6 +97,26 @@ final class SysKBImpl extends ImmutableDataRepresentation implements SysKB, SysK
         return new SysKBImpl(filenameOrContent, textSeriesFactory, digitSeriesFactory, realDigitSeriesFactory, truthSeriesFactory, emailFactory, emailSeriesFactory, logMessageTypeProvider, executionEnvironmentProvider, loggerFactory, systemDataRepresentationPropertyName, systemNamePropertyName, systemExecutionEnvironmentPropertyName, systemLoggerLevelPropertyName, systemTestModePropertyName);
     }
 
+    public SysKB loadFile(String path) {
+        return load(path, DataRepresentationImpl::readFile);
+    }
+
+    public SysKB loadResource(String name) {
+        return load(name, this::readResource);
+    }
+
+    public SysKB loadUrl(String url) {
+        return load(url, DataRepresentationImpl::readUrl);
+    }
+
+    private SysKB load(String location, Function<String, JsonElement> source) {
+        SysKBImpl sysKB = new SysKBImpl("", textSeriesFactory, digitSeriesFactory, realDigitSeriesFactory, truthSeriesFactory, emailFactory, emailSeriesFactory, logMessageTypeProvider, executionEnvironmentProvider, loggerFactory, systemDataRepresentationPropertyName, systemNamePropertyName, systemExecutionEnvironmentPropertyName, systemLoggerLevelPropertyName, systemTestModePropertyName);
+        sysKB.filenameOrContent = location;
+        sysKB.source = source;
+        sysKB.reinit();
+        return sysKB;
+    }
+
     public SysKB create(String systemName, LogMessageType logMessageType, Boolean systemTestMode) {
         SysKBImpl sysKB = new SysKBImpl("", textSeriesFactory, digitSeriesFactory, realDigitSeriesFactory, truthSeriesFactory, emailFactory, emailSeriesFactory, logMessageTypeProvider, executionEnvironmentProvider, loggerFactory, systemDataRepresentationPropertyName, systemNamePropertyName, systemExecutionEnvironmentPropertyName, systemLoggerLevelPropertyName, systemTestModePropertyName);
         sysKB.systemName = systemName;
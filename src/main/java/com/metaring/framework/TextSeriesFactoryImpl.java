@@ -16,11 +16,15 @@
 
 package com.metaring.framework;
 
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.function.Function;
+import java.util.stream.Collector;
 import java.util.stream.Stream;
 
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+
 import com.metaring.framework.type.factory.TextSeriesFactory;
 import com.metaring.framework.type.series.TextSeries;
 
@@ -39,12 +43,55 @@ final class TextSeriesFactoryImpl implements TextSeriesFactory {
 
     @Override
     public TextSeries create(String... array) {
-        return create(array == null ? new ArrayList<>() : Arrays.asList(array));
+        return array == null ? new TextSeriesImpl() : create(Arrays.asList(array));
+    }
+
+    public Collector<String, ?, TextSeries> collector() {
+        return Collector.<String, TextSeries> of(TextSeriesImpl::new, TextSeries::add, (left, right) -> {
+            left.addAll(right);
+            return left;
+        });
+    }
+
+    /**
+     * A series storing each distinct value once, for large series repeating a
+     * small set of values; utf8Arena keeps the distinct values as UTF-8 bytes
+     * instead of Strings.
+     */
+    public TextSeries createDictionaryEncoded(Iterable<String> iterable, boolean utf8Arena) {
+        return new DictionaryTextSeriesImpl(iterable, utf8Arena);
+    }
+
+    public Collector<String, ?, TextSeries> dictionaryEncodedCollector(boolean utf8Arena) {
+        return Collector.<String, TextSeries> of(() -> new DictionaryTextSeriesImpl(utf8Arena), TextSeries::add, (left, right) -> {
+            left.addAll(right);
+            return left;
+        });
     }
 
+    /**
+     * JSON arrays are decoded in a single pass straight into the series;
+     * any other content goes through the configured strings function.
+     */
     @Override
     public TextSeries fromJson(String json) {
-        Stream<String> strings = fromJsonToStringsFunction.apply(json);
-        return strings == null ? null : create(strings.toArray(String[]::new));
+        if (JsonArrays.isNull(json)) {
+            return null;
+        }
+        try(JsonReader jsonReader = JsonArrays.beginArray(json)) {
+            if (jsonReader == null) {
+                Stream<String> strings = fromJsonToStringsFunction.apply(json);
+                return strings == null ? null : create(strings.toArray(String[]::new));
+            }
+            TextSeriesImpl textSeries = new TextSeriesImpl();
+            while (jsonReader.hasNext()) {
+                textSeries.add(JsonArrays.nextCleanString(jsonReader));
+            }
+            JsonArrays.endArray(jsonReader);
+            return textSeries;
+        }
+        catch (IOException e) {
+            throw new JsonSyntaxException(e);
+        }
     }
 }
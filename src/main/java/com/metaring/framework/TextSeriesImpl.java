@@ -16,41 +16,88 @@
 
 package com.metaring.framework;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
-import java.util.Collection;
-import java.util.function.Predicate;
-import java.util.function.UnaryOperator;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 import org.apache.calcite.linq4j.Enumerable;
 import org.apache.calcite.linq4j.Linq4j;
 
 import com.metaring.framework.type.series.TextSeries;
 
-final class TextSeriesImpl extends ArrayList<String> implements TextSeries {
+final class TextSeriesImpl extends ObjectSeries<String> implements TextSeries {
 
-    private static final long serialVersionUID = 4326604054481031862L;
-    private Enumerable<String> internalEnumerable;
+    // Changed on purpose along with the serial form, which went from the
+    // ArrayList fields to size plus the raw items: streams of the old form are
+    // rejected with an InvalidClassException instead of being misread.
+    private static final long serialVersionUID = -2848218400985914536L;
+    private transient Enumerable<String> internalEnumerable;
 
-    TextSeriesImpl(Iterable<String> iterable) {
+    TextSeriesImpl() {
         super();
-        this.addAll(StreamSupport.stream(iterable.spliterator(), false).collect(Collectors.toList()));
+    }
+
+    /**
+     * Collections are copied once, through toArray.
+     */
+    TextSeriesImpl(Iterable<String> iterable) {
+        super(iterable);
+    }
+
+    private TextSeriesImpl(Object[] elements, int offset, int size, boolean shared, boolean readOnly) {
+        super(elements, offset, size, shared, readOnly);
     }
 
     @Override
     public String toJson() {
-        StringBuilder sb = new StringBuilder("[");
-        forEach(it -> sb.append("\"").append(it).append("\","));
-        return sb.delete(sb.length() - 1, sb.length()).append("]").toString();
+        StringBuilder sb = new StringBuilder(2 + size * 8);
+        try {
+            writeTo(sb);
+        }
+        catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return sb.toString();
+    }
+
+    public void writeTo(Appendable appendable) throws IOException {
+        appendable.append('[');
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                appendable.append(',');
+            }
+            String value = elementAt(i);
+            if (value == null) {
+                JsonStreams.writeNull(appendable);
+            }
+            else {
+                JsonStreams.writeString(appendable, value);
+            }
+        }
+        appendable.append(']');
+    }
+
+    public void writeTo(OutputStream outputStream) throws IOException {
+        Writer writer = JsonStreams.newWriter(outputStream);
+        writeTo(writer);
+        writer.flush();
+    }
+
+    public void writeTo(ByteBuffer byteBuffer) throws IOException {
+        writeTo(JsonStreams.asOutputStream(byteBuffer));
     }
 
     @Override
     public String[] toArray() {
-        return this.toArray(new String[this.size()]);
+        return Arrays.copyOfRange(elements, offset, offset + size, String[].class);
     }
 
+    /**
+     * Linq4j enumerates the list itself, so the same instance stays valid
+     * across mutations.
+     */
     @Override
     public Enumerable<String> asEnumerable() {
         return internalEnumerable != null ? internalEnumerable : (internalEnumerable = Linq4j.asEnumerable(this));
@@ -96,77 +143,46 @@ final class TextSeriesImpl extends ArrayList<String> implements TextSeries {
         return array == null ? false : this.retainAll(Arrays.asList(array));
     }
 
-    private void recreateEnumerable() {
-        if (internalEnumerable != null) {
-            internalEnumerable = Linq4j.asEnumerable(this);
-        }
-    }
-
-    @Override
-    public boolean add(String e) {
-        boolean test = super.add(e);
-        recreateEnumerable();
-        return test;
-    }
-
-    @Override
-    public void add(int index, String element) {
-        super.add(index, element);
-        recreateEnumerable();
-    }
-
-    @Override
-    public boolean addAll(Collection<? extends String> c) {
-        boolean test = super.addAll(c);
-        recreateEnumerable();
-        return test;
-    }
-
-    @Override
-    public boolean addAll(int index, Collection<? extends String> c) {
-        boolean test = super.addAll(index, c);
-        recreateEnumerable();
-        return test;
+    /**
+     * Items from (inclusive) to to (exclusive) as a series sharing this one's
+     * array: nothing is copied unless one of the two is modified later.
+     */
+    public TextSeriesImpl slice(int from, int to) {
+        checkSlice(from, to);
+        return new TextSeriesImpl(share(), offset + from, to - from, true, readOnly);
     }
 
-    @Override
-    public boolean remove(Object o) {
-        boolean test = super.remove(o);
-        recreateEnumerable();
-        return test;
+    /**
+     * A snapshot of the current items that rejects any modification, sharing
+     * this series' array until this series is modified.
+     */
+    public TextSeriesImpl readOnlyView() {
+        return new TextSeriesImpl(share(), offset, size, true, true);
     }
 
-    @Override
-    public String remove(int index) {
-        String test = super.remove(index);
-        recreateEnumerable();
-        return test;
-    }
-
-    @Override
-    public boolean removeAll(Collection<?> c) {
-        boolean test = super.removeAll(c);
-        recreateEnumerable();
-        return test;
-    }
-
-    @Override
-    public boolean removeIf(Predicate<? super String> filter) {
-        boolean test = super.removeIf(filter);
-        recreateEnumerable();
-        return test;
-    }
-
-    @Override
-    public boolean retainAll(Collection<?> c) {
-        boolean test = super.retainAll(c);
-        recreateEnumerable();
-        return test;
-    }
-
-    @Override
-    public void replaceAll(UnaryOperator<String> operator) {
-        super.replaceAll(operator);
-        recreateEnumerable();
+    /**
+     * A new series with the items of this one followed by those of the
+     * others, filled with a single presized copy.
+     */
+    public TextSeriesImpl concat(TextSeries... others) {
+        int total = size;
+        for (TextSeries other : others) {
+            total += other.size();
+        }
+        Object[] result = Arrays.copyOfRange(elements, offset, offset + total, Object[].class);
+        int position = size;
+        for (TextSeries other : others) {
+            if (other instanceof TextSeriesImpl) {
+                TextSeriesImpl series = (TextSeriesImpl) other;
+                System.arraycopy(series.elements, series.offset, result, position, series.size);
+                position += series.size;
+            }
+            else {
+                for (String value : other) {
+                    result[position++] = value;
+                }
+            }
+        }
+        return new TextSeriesImpl(result, 0, position, false, false);
     }
 }
@@ -16,11 +16,15 @@
 
 package com.metaring.framework;
 
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.function.Function;
+import java.util.stream.Collector;
 import java.util.stream.Stream;
 
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+
 import com.metaring.framework.type.factory.TruthSeriesFactory;
 import com.metaring.framework.type.series.TruthSeries;
 
@@ -39,12 +43,63 @@ final class TruthSeriesFactoryImpl implements TruthSeriesFactory {
 
     @Override
     public TruthSeries create(Boolean... array) {
-        return create(array == null ? new ArrayList<>() : Arrays.asList(array));
+        return array == null ? new TruthSeriesImpl() : create(Arrays.asList(array));
+    }
+
+    public TruthSeries createFromBooleans(boolean... array) {
+        return array == null ? new TruthSeriesImpl() : new TruthSeriesImpl(array);
     }
 
+    public Collector<Boolean, ?, TruthSeries> collector() {
+        return Collector.<Boolean, TruthSeries> of(TruthSeriesImpl::new, TruthSeries::add, (left, right) -> {
+            left.addAll(right);
+            return left;
+        });
+    }
+
+    /**
+     * JSON arrays are decoded in a single pass straight into the bits; as
+     * with Boolean.parseBoolean, only true literals and case-insensitive
+     * "true" strings are true. Any other content goes through the configured
+     * strings function.
+     */
     @Override
     public TruthSeries fromJson(String json) {
-        Stream<String> strings = fromJsonToStringsFunction.apply(json);
-        return strings == null ? null : create(strings.map(Boolean::new).toArray(Boolean[]::new));
+        if (JsonArrays.isNull(json)) {
+            return null;
+        }
+        try(JsonReader jsonReader = JsonArrays.beginArray(json)) {
+            if (jsonReader == null) {
+                return fromStrings(fromJsonToStringsFunction.apply(json));
+            }
+            TruthSeriesImpl truthSeries = new TruthSeriesImpl();
+            while (jsonReader.hasNext()) {
+                switch (jsonReader.peek()) {
+                    case BOOLEAN:
+                        truthSeries.addTruth(jsonReader.nextBoolean());
+                        break;
+                    case STRING:
+                        truthSeries.addTruth(Boolean.parseBoolean(jsonReader.nextString()));
+                        break;
+                    default:
+                        jsonReader.skipValue();
+                        truthSeries.addTruth(false);
+                }
+            }
+            JsonArrays.endArray(jsonReader);
+            return truthSeries;
+        }
+        catch (IOException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    private TruthSeries fromStrings(Stream<String> strings) {
+        if (strings == null) {
+            return null;
+        }
+        TruthSeriesImpl truthSeries = new TruthSeriesImpl();
+        strings.forEachOrdered(string -> truthSeries.addTruth(Boolean.parseBoolean(string)));
+        return truthSeries;
     }
 }
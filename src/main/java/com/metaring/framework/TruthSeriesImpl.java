@@ -16,12 +16,23 @@
 
 package com.metaring.framework;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.Predicate;
-import java.util.function.UnaryOperator;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.StreamSupport;
 
 import org.apache.calcite.linq4j.Enumerable;
@@ -29,28 +40,116 @@ import org.apache.calcite.linq4j.Linq4j;
 
 import com.metaring.framework.type.series.TruthSeries;
 
-final class TruthSeriesImpl extends ArrayList<Boolean> implements TruthSeries {
+/**
+ * Keeps its items as bits of a growable long[], one bit per item, so counting
+ * and combining series work a word (64 items) at a time. The items start at
+ * bit offset, which is only non-zero for slices sharing the words of another
+ * series; reads go through word(int), which realigns and masks them. Once
+ * modified, a series owns its words, starts at bit 0 and keeps the bits past
+ * size at zero. Being primitive-backed, it does not accept null items.
+ */
+final class TruthSeriesImpl extends AbstractList<Boolean> implements TruthSeries, RandomAccess, Serializable {
+
+    private static final long serialVersionUID = 3907551868017862614L;
+    private static final long[] EMPTY = {};
 
-    private static final long serialVersionUID = -7182348536677018709L;
-    private Enumerable<Boolean> internalEnumerable;
+    private long[] words;
+    private transient int offset;
+    private int size;
+    private transient boolean shared;
+    private final boolean readOnly;
+    private transient Enumerable<Boolean> internalEnumerable;
+
+    TruthSeriesImpl() {
+        super();
+        words = EMPTY;
+        readOnly = false;
+    }
 
     TruthSeriesImpl(Iterable<Boolean> iterable) {
+        this();
+        if (iterable instanceof Collection) {
+            ensureCapacity(((Collection<Boolean>) iterable).size());
+        }
+        for (Boolean value : iterable) {
+            addTruth(value);
+        }
+    }
+
+    TruthSeriesImpl(boolean[] values) {
+        this();
+        ensureCapacity(values.length);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i]) {
+                words[i >>> 6] |= 1L << i;
+            }
+        }
+        size = values.length;
+    }
+
+    private TruthSeriesImpl(long[] words, int offset, int size, boolean readOnly) {
         super();
-        this.addAll(StreamSupport.stream(iterable.spliterator(), false).collect(Collectors.toList()));
+        this.words = words;
+        this.offset = offset;
+        this.size = size;
+        this.shared = true;
+        this.readOnly = readOnly;
     }
 
     @Override
     public String toJson() {
-        StringBuilder sb = new StringBuilder("[");
-        forEach(it -> sb.append(it.toString()).append(","));
-        return sb.delete(sb.length() - 1, sb.length()).append("]").toString();
+        StringBuilder sb = new StringBuilder(2 + size * 6);
+        try {
+            writeTo(sb);
+        }
+        catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return sb.toString();
+    }
+
+    public void writeTo(Appendable appendable) throws IOException {
+        appendable.append('[');
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                appendable.append(',');
+            }
+            JsonStreams.writeBoolean(appendable, getTruth(i));
+        }
+        appendable.append(']');
+    }
+
+    public void writeTo(OutputStream outputStream) throws IOException {
+        Writer writer = JsonStreams.newWriter(outputStream);
+        writeTo(writer);
+        writer.flush();
+    }
+
+    public void writeTo(ByteBuffer byteBuffer) throws IOException {
+        writeTo(JsonStreams.asOutputStream(byteBuffer));
     }
 
     @Override
     public Boolean[] toArray() {
-        return this.toArray(new Boolean[this.size()]);
+        Boolean[] array = new Boolean[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = getTruth(i);
+        }
+        return array;
+    }
+
+    public boolean[] toBooleanArray() {
+        boolean[] array = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = bit(i);
+        }
+        return array;
     }
 
+    /**
+     * Linq4j enumerates the list itself, so the same instance stays valid
+     * across mutations.
+     */
     @Override
     public Enumerable<Boolean> asEnumerable() {
         return internalEnumerable != null ? internalEnumerable : (internalEnumerable = Linq4j.asEnumerable(this));
@@ -96,77 +195,562 @@ final class TruthSeriesImpl extends ArrayList<Boolean> implements TruthSeries {
         return array == null ? false : this.retainAll(Arrays.asList(array));
     }
 
-    private void recreateEnumerable() {
-        if (internalEnumerable != null) {
-            internalEnumerable = Linq4j.asEnumerable(this);
+    public boolean getTruth(int index) {
+        checkIndex(index);
+        return bit(index);
+    }
+
+    public boolean setTruth(int index, boolean value) {
+        beforeChange();
+        boolean previous = getTruth(index);
+        setBit(index, value);
+        return previous;
+    }
+
+    public void addTruth(boolean value) {
+        beforeChange();
+        ensureCapacity(size + 1);
+        if (value) {
+            words[size >>> 6] |= 1L << size;
+        }
+        size++;
+        modCount++;
+    }
+
+    /**
+     * Number of true items.
+     */
+    public int count() {
+        int count = 0;
+        int wordCount = wordCount(size);
+        for (int i = 0; i < wordCount; i++) {
+            count += Long.bitCount(word(i));
+        }
+        return count;
+    }
+
+    public boolean anyTrue() {
+        int wordCount = wordCount(size);
+        for (int i = 0; i < wordCount; i++) {
+            if (word(i) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * True for an empty series, as for an empty stream's allMatch.
+     */
+    public boolean allTrue() {
+        int fullWords = size >>> 6;
+        for (int i = 0; i < fullWords; i++) {
+            if (word(i) != -1L) {
+                return false;
+            }
+        }
+        int tail = size & 63;
+        return tail == 0 || word(fullWords) == (1L << tail) - 1;
+    }
+
+    /**
+     * Index of the first item equal to value at or after from, -1 if none.
+     */
+    public int next(boolean value, int from) {
+        if (from < 0) {
+            from = 0;
         }
+        if (from >= size) {
+            return -1;
+        }
+        int wordIndex = from >>> 6;
+        long word = (value ? word(wordIndex) : ~word(wordIndex)) & -1L << from;
+        int wordCount = wordCount(size);
+        while (true) {
+            if (word != 0) {
+                int index = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                return index < size ? index : -1;
+            }
+            if (++wordIndex == wordCount) {
+                return -1;
+            }
+            word = value ? word(wordIndex) : ~word(wordIndex);
+        }
+    }
+
+    /**
+     * Positions of the true items in ascending order, to apply the series as
+     * a mask over others.
+     */
+    public IntStream trueIndices() {
+        PrimitiveIterator.OfInt iterator = new PrimitiveIterator.OfInt() {
+
+            private int next = TruthSeriesImpl.this.next(true, 0);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                int current = next;
+                next = TruthSeriesImpl.this.next(true, current + 1);
+                return current;
+            }
+        };
+        return StreamSupport.intStream(Spliterators.spliterator(iterator, count(), Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.NONNULL), false);
+    }
+
+    public TruthSeriesImpl and(TruthSeriesImpl other) {
+        checkSameSize(other);
+        beforeChange();
+        int wordCount = wordCount(size);
+        for (int i = 0; i < wordCount; i++) {
+            words[i] &= other.word(i);
+        }
+        return this;
+    }
+
+    public TruthSeriesImpl or(TruthSeriesImpl other) {
+        checkSameSize(other);
+        beforeChange();
+        int wordCount = wordCount(size);
+        for (int i = 0; i < wordCount; i++) {
+            words[i] |= other.word(i);
+        }
+        return this;
+    }
+
+    public TruthSeriesImpl xor(TruthSeriesImpl other) {
+        checkSameSize(other);
+        beforeChange();
+        int wordCount = wordCount(size);
+        for (int i = 0; i < wordCount; i++) {
+            words[i] ^= other.word(i);
+        }
+        return this;
+    }
+
+    public TruthSeriesImpl not() {
+        beforeChange();
+        int wordCount = wordCount(size);
+        for (int i = 0; i < wordCount; i++) {
+            words[i] = ~words[i];
+        }
+        clearTail(size);
+        return this;
+    }
+
+    /**
+     * Items from (inclusive) to to (exclusive) as a series sharing this one's
+     * words from a bit offset: nothing is copied unless one of the two is
+     * modified later.
+     */
+    public TruthSeriesImpl slice(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("From: " + from + ", To: " + to + ", Size: " + size);
+        }
+        shared = true;
+        return new TruthSeriesImpl(words, offset + from, to - from, readOnly);
+    }
+
+    /**
+     * A snapshot of the current items that rejects any modification, sharing
+     * this series' words until this series is modified.
+     */
+    public TruthSeriesImpl readOnlyView() {
+        shared = true;
+        return new TruthSeriesImpl(words, offset, size, true);
+    }
+
+    /**
+     * A new series with the items of this one followed by those of the
+     * others, allocated once for the total size.
+     */
+    public TruthSeriesImpl concat(TruthSeries... others) {
+        int total = size;
+        for (TruthSeries other : others) {
+            total += other.size();
+        }
+        TruthSeriesImpl result = new TruthSeriesImpl();
+        result.ensureCapacity(total);
+        result.addAll(this);
+        for (TruthSeries other : others) {
+            result.addAll(other);
+        }
+        return result;
+    }
+
+    public void trimToSize() {
+        beforeChange();
+        int wordCount = wordCount(size);
+        if (words.length > wordCount) {
+            words = wordCount == 0 ? EMPTY : Arrays.copyOf(words, wordCount);
+        }
+    }
+
+    public void ensureCapacity(int capacity) {
+        beforeChange();
+        int wordCount = wordCount(capacity);
+        if (wordCount > words.length) {
+            int grown = words.length + (words.length >> 1);
+            words = Arrays.copyOf(words, Math.max(Math.max(grown, wordCount), 2));
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Boolean get(int index) {
+        return getTruth(index);
+    }
+
+    @Override
+    public Boolean set(int index, Boolean element) {
+        return setTruth(index, element);
     }
 
     @Override
     public boolean add(Boolean e) {
-        boolean test = super.add(e);
-        recreateEnumerable();
-        return test;
+        addTruth(e);
+        return true;
     }
 
     @Override
     public void add(int index, Boolean element) {
-        super.add(index, element);
-        recreateEnumerable();
+        boolean value = element;
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        ensureCapacity(size + 1);
+        int wordIndex = index >>> 6;
+        for (int i = size >>> 6; i > wordIndex; i--) {
+            words[i] = words[i] << 1 | words[i - 1] >>> 63;
+        }
+        long below = (1L << index) - 1;
+        words[wordIndex] = words[wordIndex] & below | (words[wordIndex] & ~below) << 1;
+        size++;
+        setBit(index, value);
+        modCount++;
     }
 
     @Override
     public boolean addAll(Collection<? extends Boolean> c) {
-        boolean test = super.addAll(c);
-        recreateEnumerable();
-        return test;
+        if (c.isEmpty()) {
+            return false;
+        }
+        ensureCapacity(size + c.size());
+        if (c instanceof TruthSeriesImpl) {
+            TruthSeriesImpl other = (TruthSeriesImpl) c;
+            for (int i = 0, otherSize = other.size; i < otherSize; i++) {
+                addTruth(other.bit(i));
+            }
+        }
+        else {
+            for (Boolean value : c) {
+                addTruth(value);
+            }
+        }
+        return true;
     }
 
     @Override
-    public boolean addAll(int index, Collection<? extends Boolean> c) {
-        boolean test = super.addAll(index, c);
-        recreateEnumerable();
-        return test;
+    public Boolean remove(int index) {
+        boolean previous = getTruth(index);
+        removeRange(index, index + 1);
+        return previous;
     }
 
     @Override
     public boolean remove(Object o) {
-        boolean test = super.remove(o);
-        recreateEnumerable();
-        return test;
+        int index = indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
     }
 
     @Override
-    public Boolean remove(int index) {
-        Boolean test = super.remove(index);
-        recreateEnumerable();
-        return test;
+    protected void removeRange(int fromIndex, int toIndex) {
+        beforeChange();
+        int removed = toIndex - fromIndex;
+        int previousSize = size;
+        size -= removed;
+        for (int index = fromIndex; index < size;) {
+            int shift = index & 63;
+            long below = (1L << shift) - 1;
+            words[index >>> 6] = words[index >>> 6] & below | bitsAt(index + removed) << shift;
+            index += 64 - shift;
+        }
+        clearTail(previousSize);
+        modCount++;
     }
 
+    @Override
+    public void clear() {
+        beforeChange();
+        if (size > 0) {
+            Arrays.fill(words, 0, wordCount(size), 0L);
+            size = 0;
+            modCount++;
+        }
+    }
+
+    /**
+     * A collection of Booleans can only match true, false or both, so it is
+     * queried twice rather than once per item.
+     */
     @Override
     public boolean removeAll(Collection<?> c) {
-        boolean test = super.removeAll(c);
-        recreateEnumerable();
-        return test;
+        return removeWhere(c.contains(Boolean.TRUE), c.contains(Boolean.FALSE));
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        return removeWhere(!c.contains(Boolean.TRUE), !c.contains(Boolean.FALSE));
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        boolean hasTrue = anyTrue();
+        boolean hasFalse = count() < size;
+        for (Object o : c) {
+            if (!(o instanceof Boolean) || !((Boolean) o ? hasTrue : hasFalse)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public boolean removeIf(Predicate<? super Boolean> filter) {
-        boolean test = super.removeIf(filter);
-        recreateEnumerable();
-        return test;
+        beforeChange();
+        int previousSize = size;
+        int kept = 0;
+        int i = 0;
+        try {
+            for (; i < previousSize; i++) {
+                boolean value = (words[i >>> 6] & 1L << i) != 0;
+                if (!filter.test(value)) {
+                    setBit(kept++, value);
+                }
+            }
+        }
+        finally {
+            for (; i < previousSize; i++) {
+                setBit(kept++, (words[i >>> 6] & 1L << i) != 0);
+            }
+            if (kept != previousSize) {
+                size = kept;
+                clearTail(previousSize);
+                modCount++;
+            }
+        }
+        return kept != previousSize;
     }
 
     @Override
-    public boolean retainAll(Collection<?> c) {
-        boolean test = super.retainAll(c);
-        recreateEnumerable();
-        return test;
+    public void sort(Comparator<? super Boolean> c) {
+        beforeChange();
+        if (c == null || c == Comparator.naturalOrder()) {
+            int trueCount = count();
+            Arrays.fill(words, 0, wordCount(size), 0L);
+            for (int i = size - trueCount; i < size; i++) {
+                words[i >>> 6] |= 1L << i;
+            }
+            modCount++;
+        }
+        else {
+            super.sort(c);
+        }
     }
 
     @Override
-    public void replaceAll(UnaryOperator<Boolean> operator) {
-        super.replaceAll(operator);
-        recreateEnumerable();
+    public int indexOf(Object o) {
+        return o instanceof Boolean ? next((Boolean) o, 0) : -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        if (!(o instanceof Boolean)) {
+            return -1;
+        }
+        boolean value = (Boolean) o;
+        for (int i = size - 1; i >= 0; i--) {
+            if (getTruth(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof TruthSeriesImpl)) {
+            return super.equals(o);
+        }
+        TruthSeriesImpl other = (TruthSeriesImpl) o;
+        if (other.size != size) {
+            return false;
+        }
+        int wordCount = wordCount(size);
+        for (int i = 0; i < wordCount; i++) {
+            if (word(i) != other.word(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 1;
+        for (int i = 0; i < size; i++) {
+            hashCode = 31 * hashCode + Boolean.hashCode(bit(i));
+        }
+        return hashCode;
+    }
+
+    private boolean removeWhere(boolean removeTrue, boolean removeFalse) {
+        beforeChange();
+        if (removeTrue && removeFalse) {
+            boolean changed = size > 0;
+            clear();
+            return changed;
+        }
+        if (!removeTrue && !removeFalse) {
+            return false;
+        }
+        int kept = removeTrue ? size - count() : count();
+        if (kept == size) {
+            return false;
+        }
+        Arrays.fill(words, 0, wordCount(size), 0L);
+        if (removeFalse) {
+            for (int i = 0; i < kept; i++) {
+                words[i >>> 6] |= 1L << i;
+            }
+        }
+        size = kept;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Zeroes the bits between the current size and a previous, larger one.
+     */
+    private void clearTail(int previousSize) {
+        int tail = size & 63;
+        if (tail != 0) {
+            words[size >>> 6] &= (1L << tail) - 1;
+        }
+        Arrays.fill(words, wordCount(size), wordCount(previousSize), 0L);
+    }
+
+    /**
+     * Called first by every mutator: read-only views refuse the change, and
+     * words still shared with a slice or view are copied, realigned to bit 0,
+     * so the other series keeps its items.
+     */
+    private void beforeChange() {
+        if (readOnly) {
+            throw new UnsupportedOperationException();
+        }
+        if (shared) {
+            words = ownWords();
+            offset = 0;
+            shared = false;
+        }
+    }
+
+    /**
+     * The index-th 64 items, realigned from the bit offset and with the bits
+     * past size cleared.
+     */
+    private long word(int index) {
+        long word = bitsAt(offset + (index << 6));
+        int remaining = size - (index << 6);
+        return remaining >= 64 ? word : word & (1L << remaining) - 1;
+    }
+
+    /**
+     * The 64 bits of the words starting at the given bit, zero past the end
+     * of the array.
+     */
+    private long bitsAt(int bit) {
+        int wordIndex = bit >>> 6;
+        int shift = bit & 63;
+        long word = wordIndex < words.length ? words[wordIndex] >>> shift : 0L;
+        if (shift != 0 && wordIndex + 1 < words.length) {
+            word |= words[wordIndex + 1] << (64 - shift);
+        }
+        return word;
+    }
+
+    private boolean bit(int index) {
+        int bit = offset + index;
+        return (words[bit >>> 6] & 1L << bit) != 0;
+    }
+
+    private long[] ownWords() {
+        int wordCount = wordCount(size);
+        long[] own = wordCount == 0 ? EMPTY : new long[wordCount];
+        for (int i = 0; i < wordCount; i++) {
+            own[i] = word(i);
+        }
+        return own;
+    }
+
+    /**
+     * Keeps the serial form of a series starting at bit 0 with no bits past
+     * size, also for slices.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("words", shared ? ownWords() : words);
+        fields.put("size", size);
+        fields.put("readOnly", readOnly);
+        out.writeFields();
+    }
+
+    private void setBit(int index, boolean value) {
+        if (value) {
+            words[index >>> 6] |= 1L << index;
+        }
+        else {
+            words[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    private void checkSameSize(TruthSeriesImpl other) {
+        if (other.size != size) {
+            throw new IllegalArgumentException("Size mismatch: " + size + " != " + other.size);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private static int wordCount(int bits) {
+        return (bits + 63) >>> 6;
     }
 }
@@ -0,0 +1,86 @@
+/**
+ *    Copyright 2019 MetaRing s.r.l.
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.metaring.framework;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Concurrent map whose values are only weakly held: an entry goes away once
+ * nobody else references its value, so registries keyed by caller-supplied
+ * names do not grow for ever. A value is created at most once per key while
+ * it is alive.
+ */
+final class WeakRegistry<K, V> {
+
+    private final ConcurrentMap<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+    private final ReferenceQueue<V> queue = new ReferenceQueue<>();
+
+    V computeIfAbsent(K key, Function<? super K, ? extends V> factory) {
+        expunge();
+        Entry<K, V> entry = entries.get(key);
+        V value = entry == null ? null : entry.get();
+        if (value != null) {
+            return value;
+        }
+        AtomicReference<V> result = new AtomicReference<>();
+        entries.compute(key, (k, current) -> {
+            V alive = current == null ? null : current.get();
+            result.set(alive == null ? factory.apply(k) : alive);
+            return alive == null ? new Entry<>(k, result.get(), queue) : current;
+        });
+        return result.get();
+    }
+
+    /**
+     * Removes the entry only if it still maps to the given value.
+     */
+    void remove(K key, V value) {
+        Entry<K, V> entry = entries.get(key);
+        if (entry != null && entry.get() == value) {
+            entries.remove(key, entry);
+        }
+    }
+
+    int size() {
+        expunge();
+        return entries.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void expunge() {
+        Reference<? extends V> reference;
+        while ((reference = queue.poll()) != null) {
+            Entry<K, V> entry = (Entry<K, V>) reference;
+            entries.remove(entry.key, entry);
+        }
+    }
+
+    private static final class Entry<K, V> extends WeakReference<V> {
+        private final K key;
+
+        Entry(K key, V value, ReferenceQueue<V> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ *    Copyright 2019 MetaRing s.r.l.
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.metaring.framework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.metaring.framework.type.DataRepresentation;
+
+/**
+ * Checks that the hashed property index follows every mutation. The
+ * benchmark runs only with -Dbenchmark=true and prints the cost of a lookup
+ * and of a merge on objects with thousands of keys.
+ */
+public class DataRepresentationImplPropertyIndexTest {
+
+    private static final EmailFactoryImpl EMAIL_FACTORY = new EmailFactoryImpl();
+    private static final DataRepresentationImpl FACTORY = new DataRepresentationImpl(null, new TextSeriesFactoryImpl(DataRepresentationImpl::getStrings), new DigitSeriesFactoryImpl(DataRepresentationImpl::getStrings), new RealDigitSeriesFactoryImpl(DataRepresentationImpl::getStrings), new TruthSeriesFactoryImpl(DataRepresentationImpl::getStrings), EMAIL_FACTORY, new EmailSeriesFactoryImpl(DataRepresentationImpl::getStrings, EMAIL_FACTORY), new LogMessageTypeImpl());
+
+    @Test
+    public void indexFollowsAdditionsReplacementsAndRemovals() {
+        DataRepresentation data = object(1000);
+        lookUpAll(data, 1000);
+        data.add("new", 1L);
+        data.add("k1", 42L);
+        data.remove("k2", "k3");
+        assertEquals(Long.valueOf(1), data.getDigit("new"));
+        assertEquals(Long.valueOf(42), data.getDigit("k1"));
+        assertFalse(data.hasProperty("k2"));
+        assertFalse(data.hasProperty("k3"));
+        assertTrue(data.hasProperty("k999"));
+        assertNull(data.get("k2"));
+        data.add("k2", (Long) null);
+        assertTrue(data.hasProperty("k2"));
+        assertTrue(data.isNull("k2"));
+    }
+
+    @Test
+    public void viewsDetachTheirIndexWhenWritten() {
+        DataRepresentation root = FACTORY.create();
+        root.add("child", object(1000));
+        DataRepresentation view = root.get("child");
+        lookUpAll(view, 1000);
+        view.add("k5", 5000L);
+        view.remove("k6");
+        assertEquals(Long.valueOf(5000), view.getDigit("k5"));
+        assertFalse(view.hasProperty("k6"));
+        assertEquals(Long.valueOf(5), root.get("child").getDigit("k5"));
+        assertTrue(root.get("child").hasProperty("k6"));
+    }
+
+    @Test
+    public void mergeKeepsEveryProperty() {
+        DataRepresentation left = object(2000);
+        DataRepresentation right = FACTORY.create();
+        for (int i = 1000; i < 3000; i++) {
+            right.add("k" + i, -1L);
+        }
+        left.merge(right);
+        assertEquals(Long.valueOf(0), left.getDigit("k0"));
+        assertEquals(Long.valueOf(-1), left.getDigit("k1500"));
+        assertEquals(Long.valueOf(-1), left.getDigit("k2999"));
+        assertEquals(3000, left.getProperties().size());
+    }
+
+    @Test
+    public void benchmark() {
+        Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+        for (int size : new int[] { 1_000, 10_000, 100_000 }) {
+            DataRepresentation data = object(size);
+            int lookups = 2_000_000;
+            for (int warmup = 0; warmup < 3; warmup++) {
+                lookUp(data, size, lookups);
+            }
+            long start = System.nanoTime();
+            lookUp(data, size, lookups);
+            long lookupNanos = System.nanoTime() - start;
+            DataRepresentation extension = object(size);
+            start = System.nanoTime();
+            object(size).merge(extension);
+            long mergeNanos = System.nanoTime() - start;
+            System.out.printf("%,7d keys: %5.1f ns per hasProperty, %6.1f ms per merge%n", size, (double) lookupNanos / lookups, mergeNanos / 1e6);
+        }
+    }
+
+    private static DataRepresentation object(int size) {
+        DataRepresentation data = FACTORY.create();
+        for (int i = 0; i < size; i++) {
+            data.add("k" + i, (long) i);
+        }
+        return data;
+    }
+
+    private static void lookUpAll(DataRepresentation data, int size) {
+        for (int i = 0; i < size; i++) {
+            assertTrue(data.hasProperty("k" + i));
+        }
+    }
+
+    private static void lookUp(DataRepresentation data, int size, int lookups) {
+        String[] keys = new String[1024];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "k" + (i * 7919 % size);
+        }
+        int found = 0;
+        for (int i = 0; i < lookups; i++) {
+            if (data.hasProperty(keys[i & 1023])) {
+                found++;
+            }
+        }
+        assertEquals(lookups, found);
+    }
+}
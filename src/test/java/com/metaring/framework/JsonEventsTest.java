@@ -0,0 +1,120 @@
+/**
+ *    Copyright 2019 MetaRing s.r.l.
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.metaring.framework;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Checks that a parsed tree and the token stream of the same document report
+ * numbers with the same events.
+ */
+public class JsonEventsTest {
+
+    @Test
+    public void treeNumbersAreClassifiedAsTheirJson() throws IOException {
+        JsonArray array = new JsonArray();
+        array.add(new JsonPrimitive(3L));
+        array.add(new JsonPrimitive(Long.MIN_VALUE));
+        array.add(new JsonPrimitive(7));
+        array.add(new JsonPrimitive((short) -2));
+        array.add(new JsonPrimitive(3.0));
+        array.add(new JsonPrimitive(0.1));
+        array.add(new JsonPrimitive(1e20));
+        array.add(new JsonPrimitive(0.1f));
+        array.add(new JsonPrimitive(4f));
+        array.add(new JsonPrimitive(new BigDecimal("3")));
+        array.add(new JsonPrimitive(new BigDecimal("3.50")));
+        array.add(new JsonPrimitive(new BigInteger("123456789012345678901234567890")));
+        assertEquals(Arrays.asList("[", "long 3", "long " + Long.MIN_VALUE, "long 7", "long -2", "double 3.0", "double 0.1", "double 1.0E20", "double 0.1", "double 4.0", "long 3", "double 3.5", "double 1.2345678901234568E29", "]"), tree(array));
+        assertEquals(tree(array), stream(array.toString()));
+    }
+
+    @Test
+    public void parsedNumbersAreClassifiedAsTheirJson() throws IOException {
+        String json = "{\"a\":3,\"b\":3.0,\"c\":3e0,\"d\":-0,\"e\":9223372036854775808,\"f\":[1,2.5]}";
+        assertEquals(Arrays.asList("{", "a", "long 3", "b", "double 3.0", "c", "double 3.0", "d", "long 0", "e", "double 9.223372036854776E18", "f", "[", "long 1", "double 2.5", "]", "}"), stream(json));
+        assertEquals(stream(json), tree(new JsonParser().parse(json)));
+    }
+
+    private static List<String> tree(com.google.gson.JsonElement element) {
+        Recorder recorder = new Recorder();
+        JsonEvents.visit(element, recorder);
+        return recorder.events;
+    }
+
+    private static List<String> stream(String json) throws IOException {
+        Recorder recorder = new Recorder();
+        JsonEvents.visit(new JsonReader(new StringReader(json)), recorder);
+        return recorder.events;
+    }
+
+    private static final class Recorder implements DataRepresentationVisitor {
+
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void startObject() {
+            events.add("{");
+        }
+
+        @Override
+        public void key(String key) {
+            events.add(key);
+        }
+
+        @Override
+        public void endObject() {
+            events.add("}");
+        }
+
+        @Override
+        public void startArray() {
+            events.add("[");
+        }
+
+        @Override
+        public void endArray() {
+            events.add("]");
+        }
+
+        @Override
+        public void value(long value) {
+            events.add("long " + value);
+        }
+
+        @Override
+        public void value(double value) {
+            events.add("double " + value);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ *    Copyright 2019 MetaRing s.r.l.
+ * 
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ * 
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.metaring.framework;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Measures with the HotSpot per-thread allocation counters what a log line
+ * costs once warmed up: the calling thread allocates only the String the
+ * formatter returns, and the asynchronous writer thread allocates nothing.
+ */
+public class LoggerAllocationTest {
+
+    private static final int WARM_UP = 50_000;
+    private static final int LINES = 100_000;
+    private static final String MESSAGE = "connection pool resized to 48 entries";
+
+    @Test
+    public void formattingAllocatesOnlyTheReturnedLine() {
+        com.sun.management.ThreadMXBean threads = threads();
+        LogLineFormatter formatter = LogLineFormatter.get();
+        long millis = System.currentTimeMillis();
+        char[] line = formatter.format(millis, "INFO", MESSAGE).toCharArray();
+        int lengths = 0;
+        for (int i = 0; i < WARM_UP; i++) {
+            lengths += formatter.format(millis + i, "INFO", MESSAGE).length();
+            lengths += String.valueOf(line).length();
+        }
+        long id = Thread.currentThread().getId();
+        long start = threads.getThreadAllocatedBytes(id);
+        for (int i = 0; i < LINES; i++) {
+            lengths += String.valueOf(line).length();
+        }
+        long copies = threads.getThreadAllocatedBytes(id) - start;
+        start = threads.getThreadAllocatedBytes(id);
+        for (int i = 0; i < LINES; i++) {
+            lengths += formatter.format(millis + WARM_UP + i, "INFO", MESSAGE).length();
+        }
+        long formatted = threads.getThreadAllocatedBytes(id) - start;
+        assertTrue(lengths > 0);
+        assertTrue("Formatting allocated " + formatted + " bytes, copying the line " + copies, formatted <= copies + LINES / 100);
+    }
+
+    @Test
+    public void writerThreadAllocatesNothingPerLine() {
+        com.sun.management.ThreadMXBean threads = threads();
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        PrintStream discard = new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+        Set<Thread> existing = new HashSet<>(Thread.getAllStackTraces().keySet());
+        AsyncLogWriter writer = new AsyncLogWriter(1024, AsyncLogWriter.FullBufferPolicy.BLOCK, AsyncLogWriter.DEFAULT_SAMPLE_RATE, LoggerImpl.LOG_SEVERE_TAG);
+        System.setOut(discard);
+        System.setErr(discard);
+        try {
+            long id = writerThread(existing).getId();
+            String info = LogLineFormatter.get().format(System.currentTimeMillis(), "INFO", MESSAGE);
+            String severe = LogLineFormatter.get().format(System.currentTimeMillis(), "SEVERE", MESSAGE);
+            publish(writer, info, severe, WARM_UP);
+            long start = threads.getThreadAllocatedBytes(id);
+            publish(writer, info, severe, LINES);
+            long allocated = threads.getThreadAllocatedBytes(id) - start;
+            assertTrue("The writer thread allocated " + allocated + " bytes for " + LINES + " lines", allocated < LINES / 100);
+        }
+        finally {
+            writer.close();
+            System.setOut(out);
+            System.setErr(err);
+        }
+    }
+
+    private static void publish(AsyncLogWriter writer, String info, String severe, int count) {
+        for (int i = 0; i < count; i++) {
+            assertTrue(writer.publish(i % 16 == 0 ? severe : info));
+        }
+        writer.flush();
+    }
+
+    private static Thread writerThread(Set<Thread> existing) {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (!existing.contains(thread) && "metaring-log-writer".equals(thread.getName())) {
+                return thread;
+            }
+        }
+        throw new AssertionError("No writer thread");
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        return threads;
+    }
+}